@@ -1,25 +1,71 @@
 import javax.swing.*;
 import java.awt.event.*;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import engine.FlowField;
+import engine.FlowFieldGhostAI;
+import engine.GameWorld;
+import engine.Maze;
+import engine.MazeCompiler;
+import exceptions.GameException;
+import net.GameClient;
+import net.Protocol;
+import render.SpriteAtlas;
+import render.WorldRenderer;
+import util.StartupTrace;
 
 /**
  * Main application entry point.
+ * Usage: java App [maze.maze | maze.mzb] [--record session.pmr] [--connect host[:port]] [--role pacman | ghost] [--trace] [--flow-field]
+ * (--connect joins a net.GameServer, which must be playing the same maze; --trace prints
+ * each startup phase as it is reached; --flow-field makes every ghost chase Pac-Man through
+ * one shared FlowField, the stress mode for mazes with hundreds of ghosts)
  */
 public class App {
     
     private static PacMan pacmanGame;
+    private static final long SCORE_FLUSH_MILLIS = 5_000;
     
     public static void main(String[] args) {
-        int rowCount = 21;
-        int columnCount = 19;
-        int tileSize = 32;
-        int boardWidth = columnCount * tileSize;
-        int boardHeight = rowCount * tileSize;
+        String mazeFile = null;
+        String recordFile = null;
+        String server = null;
+        byte role = Protocol.ROLE_ANY;
+        boolean trace = false;
+        boolean flowField = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--record") && i + 1 < args.length) recordFile = args[++i];
+            else if (args[i].equals("--connect") && i + 1 < args.length) server = args[++i];
+            else if (args[i].equals("--role") && i + 1 < args.length) role = args[++i].equals("ghost") ? Protocol.ROLE_GHOST : Protocol.ROLE_PACMAN;
+            else if (args[i].equals("--trace")) trace = true;
+            else if (args[i].equals("--flow-field")) flowField = true;
+            else mazeFile = args[i];
+        }
+        StartupTrace.setPrinting(trace);
+        StartupTrace.mark(StartupTrace.LAUNCH);
+
+        // sprites, font and maze load in the background while the window is built
+        SpriteAtlas.getSharedAsync().thenRun(() -> StartupTrace.mark(StartupTrace.SPRITES_READY));
+        CompletableFuture.runAsync(WorldRenderer::preloadFont);
+        String mazeName = mazeFile;
+        boolean chase = flowField;
+        CompletableFuture<GameWorld> loading = CompletableFuture.supplyAsync(() -> {
+            GameWorld loaded = loadWorld(mazeName);
+            // a sync field: recordings store the AI kind and Replay rebuilds it (see InputLog)
+            if (chase) loaded.setGhostAI(new FlowFieldGhostAI(new FlowField(loaded.getWallGrid(), false)));
+            return loaded;
+        });
 
         JFrame frame = new JFrame("Pac Man");
-        frame.setSize(boardWidth, boardHeight);
-        frame.setLocationRelativeTo(null);
         frame.setResizable(false);
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                exit();
+            }
+        });
 
         // Menu bar
         JMenuBar menuBar = new JMenuBar();
@@ -31,6 +77,14 @@ public class App {
         newGameItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_N, InputEvent.CTRL_DOWN_MASK));
         newGameItem.addActionListener(e -> pacmanGame.newGame());
         
+        JCheckBoxMenuItem autopilotItem = new JCheckBoxMenuItem("Autopilot");
+        autopilotItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_A, InputEvent.CTRL_DOWN_MASK));
+        autopilotItem.addActionListener(e -> { pacmanGame.setAutopilot(autopilotItem.isSelected()); pacmanGame.requestFocus(); });
+
+        JCheckBoxMenuItem overlayItem = new JCheckBoxMenuItem("Performance Overlay");
+        overlayItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0));
+        overlayItem.addActionListener(e -> { pacmanGame.setOverlay(overlayItem.isSelected()); pacmanGame.requestFocus(); });
+
         JMenuItem saveScoreItem = new JMenuItem("Save Score");
         saveScoreItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_S, InputEvent.CTRL_DOWN_MASK));
         saveScoreItem.addActionListener(e -> { pacmanGame.saveCurrentScore(); pacmanGame.requestFocus(); });
@@ -43,12 +97,14 @@ public class App {
         exitItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Q, InputEvent.CTRL_DOWN_MASK));
         exitItem.addActionListener(e -> {
             if (JOptionPane.showConfirmDialog(frame, "Exit?", "Exit", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
-                System.exit(0);
+                exit();
             }
             pacmanGame.requestFocus();
         });
         
         fileMenu.add(newGameItem);
+        fileMenu.add(autopilotItem);
+        fileMenu.add(overlayItem);
         fileMenu.addSeparator();
         fileMenu.add(saveScoreItem);
         fileMenu.add(highScoresItem);
@@ -78,10 +134,56 @@ public class App {
         menuBar.add(helpMenu);
         frame.setJMenuBar(menuBar);
 
-        pacmanGame = new PacMan();
+        GameWorld world = loading.join();
+        StartupTrace.mark(StartupTrace.MAZE_READY);
+        GameClient client = server == null ? null : connect(server, role);
+        pacmanGame = new PacMan(world, client);
+        if (client != null) frame.setTitle("Pac Man - online");
+        if (recordFile != null) {
+            try {
+                pacmanGame.startRecording(recordFile);
+            } catch (GameException e) {
+                JOptionPane.showMessageDialog(null, e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
         frame.add(pacmanGame);
         frame.pack();
+        frame.setLocationRelativeTo(null);
         pacmanGame.requestFocus();
         frame.setVisible(true);
     }
+
+    /** Writes any queued scores before the JVM goes away. */
+    private static void exit() {
+        if (pacmanGame != null && !pacmanGame.shutdown(SCORE_FLUSH_MILLIS)) {
+            System.out.println("Note: some scores may not have been saved.");
+        }
+        System.exit(0);
+    }
+
+    /** Joins a server given as host or host:port; exits if it cannot be reached. */
+    private static GameClient connect(String address, byte role) {
+        int colon = address.lastIndexOf(':');
+        String host = colon < 0 ? address : address.substring(0, colon);
+        int port = colon < 0 ? Protocol.DEFAULT_PORT : Integer.parseInt(address.substring(colon + 1));
+        try {
+            return GameClient.connect(host, port, role);
+        } catch (GameException e) {
+            JOptionPane.showMessageDialog(null, e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            System.exit(1);
+            return null;
+        }
+    }
+
+    /** The default maze, or the maze file named on the command line. */
+    private static GameWorld loadWorld(String mazeFile) {
+        if (mazeFile == null) return new GameWorld();
+        try {
+            Maze maze = mazeFile.endsWith(".mzb") ? MazeCompiler.load(mazeFile) : MazeCompiler.readText(mazeFile);
+            return new GameWorld(maze, GameWorld.DEFAULT_TILE_SIZE, new Random());
+        } catch (GameException e) {
+            JOptionPane.showMessageDialog(null, e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            return new GameWorld();
+        }
+    }
 }
@@ -1,146 +1,127 @@
 import java.awt.*;
 import java.awt.event.*;
-import java.util.ArrayList;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javax.swing.*;
 
-import model.*;
+import engine.FixedStepLoop;
+import engine.GameWorld;
+import engine.InputLog;
+import engine.MctsPlanner;
+import net.GameClient;
+import render.SpriteAtlas;
+import render.WorldRenderer;
 import exceptions.GameException;
+import util.PerfMetrics;
 import util.ScoreManager;
+import util.ScoreService;
+import util.StartupTrace;
 
 /**
  * Main game panel for Pac-Man.
+ * Renders a GameWorld and feeds it keyboard input; the game rules live in the world.
  */
-public class PacMan extends JPanel implements ActionListener, KeyListener {
-
-    private int rowCount = 21;
-    private int columnCount = 19;
-    private int tileSize = 32;
-    private int boardWidth = columnCount * tileSize;
-    private int boardHeight = rowCount * tileSize;
-
-    private Image wallImage;
-    private Image blueGhostImage, orangeGhostImage, pinkGhostImage, redGhostImage, scaredGhostImage;
-    private Image pacmanUpImage, pacmanDownImage, pacmanLeftImage, pacmanRightImage;
-
-    // X = wall, O = skip, P = pac man, ' ' = food, b/o/p/r = ghosts
-    private String[] tileMap = {
-        "XXXXXXXXXXXXXXXXXXX",
-        "X        X        X",
-        "X XX XXX X XXX XX X",
-        "X                 X",
-        "X XX X XXXXX X XX X",
-        "X    X       X    X",
-        "XXXXXX X   X XXXXXX",
-        "OOOX X X   X X XOOO",
-        "XXXX X XXrXX X XXXX",
-        "O       bpo       O",
-        "XXXX X XXXXX X XXXX",
-        "OOOX X       X XOOO",
-        "XXXX X XXXXX X XXXX",
-        "X        X        X",
-        "X XX XXX X XXX XX X",
-        "X  X     P     X  X",
-        "XX X XXXXXXX X XX X",
-        "X    X       X    X",
-        "X XXXX XXXXX XXXX X",
-        "X                 X",
-        "XXXXXXXXXXXXXXXXXXX"
-    };
-
-    private ArrayList<Wall> walls;
-    private ArrayList<Food> foods;
-    private ArrayList<Ghost> ghosts;
-    private Player pacman;
-
-    private Timer gameLoop;
-    private char[] directions = {'U', 'D', 'L', 'R'};
-    private Random random = new Random();
-    private int score = 0;
-    private boolean gameOver = false;
-    private char nextDirection = 'R';
-    private ScoreManager scoreManager;
+public class PacMan extends JPanel implements FixedStepLoop.Listener, KeyListener {
+
+    private GameWorld world;
+    private WorldRenderer renderer;
+
+    private static final long TICK_NANOS = 50_000_000L; // 20 ticks/sec
+    private static final long FRAME_NANOS = 1_000_000_000L / 60;
+    private static final int MAX_CATCH_UP_TICKS = 5;
+    private static final int MAX_VIEW_WIDTH = 1024;
+    private static final int MAX_VIEW_HEIGHT = 768;
+    private static final long AUTOPILOT_BUDGET_NANOS = 30_000_000L; // leaves 20ms of each tick free
+    private static final long OVERLAY_REFRESH_NANOS = 500_000_000L;
+    private static final Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 180);
+    private static final int OVERLAY_LINE = 14;
+    private static final int OVERLAY_WIDTH = 400;
+    private static int instances;
+
+    private FixedStepLoop gameLoop;
+    private volatile char nextDirection = 'R';
+    private volatile double renderAlpha = 1.0;
+    private ScoreService scores;
+
+    // deterministic mode: each game starts from a fresh seed and its input is logged
+    private String recordingFile;
+    private InputLog recording;
+
+    private volatile MctsPlanner autopilot;
+
+    // network mode: the world mirrors a GameServer room and the server decides game over
+    private GameClient client;
+
+    private PerfMetrics metrics = new PerfMetrics();
+    private String metricsName;
+    private volatile boolean overlay;
+    private volatile String[] overlayLines = new String[0];
+    private long overlayRefreshed;
+
+    private volatile boolean spritesSettled;
+    private boolean interactive;
 
     public PacMan() {
-        setPreferredSize(new Dimension(boardWidth, boardHeight));
+        this(new GameWorld());
+    }
+
+    /** Boards larger than MAX_VIEW_WIDTH x MAX_VIEW_HEIGHT scroll with Pac-Man. */
+    public PacMan(GameWorld world) {
+        this(world, null);
+    }
+
+    /** Plays on a server through the client; the world must use the server's maze. */
+    public PacMan(GameWorld world, GameClient client) {
+        this.world = world;
+        this.client = client;
+
+        setPreferredSize(new Dimension(Math.min(world.getBoardWidth(), MAX_VIEW_WIDTH),
+            Math.min(world.getBoardHeight(), MAX_VIEW_HEIGHT)));
         setBackground(Color.BLACK);
         addKeyListener(this);
         setFocusable(true);
 
-        scoreManager = new ScoreManager("highscores.txt");
-        try {
-            scoreManager.loadScores();
-        } catch (GameException e) {
-            System.out.println("Note: " + e.getUserFriendlyMessage());
-        }
+        // loads in the background; the first frame does not wait for the score files
+        scores = new ScoreService(new ScoreManager("highscores.txt"), "scores.db", "highscores.txt");
+        scores.load().whenComplete((result, error) -> {
+            if (error != null) System.out.println("Note: " + userMessage(error));
+            else StartupTrace.mark(StartupTrace.SCORES_LOADED);
+        });
 
-        loadImages();
-        loadMap();
-        
-        for (Ghost ghost : ghosts) {
-            ghost.updateDirection(directions[random.nextInt(4)]);
-        }
+        metricsName = "game-" + (++instances);
+
+        // the first frames use placeholders if the sprites are still being decoded
+        CompletableFuture<SpriteAtlas> sprites = SpriteAtlas.getSharedAsync();
+        boolean decoded = sprites.isDone() && !sprites.isCompletedExceptionally();
+        renderer = new WorldRenderer(world, decoded ? sprites.join() : null);
+        spritesSettled = decoded;
+        if (!decoded) sprites.whenComplete(this::spritesLoaded);
         
-        gameLoop = new Timer(50, this); // 20fps
+        gameLoop = new FixedStepLoop(TICK_NANOS, FRAME_NANOS, MAX_CATCH_UP_TICKS, this);
         gameLoop.start();
     }
     
-    private void loadImages() {
-        wallImage = new ImageIcon(getClass().getResource("./wall.png")).getImage();
-        blueGhostImage = new ImageIcon(getClass().getResource("./blueGhost.png")).getImage();
-        orangeGhostImage = new ImageIcon(getClass().getResource("./orangeGhost.png")).getImage();
-        pinkGhostImage = new ImageIcon(getClass().getResource("./pinkGhost.png")).getImage();
-        redGhostImage = new ImageIcon(getClass().getResource("./redGhost.png")).getImage();
-        
+    private void publishMetrics() {
         try {
-            scaredGhostImage = new ImageIcon(getClass().getResource("./scaredGhost.png")).getImage();
-        } catch (Exception e) {
-            scaredGhostImage = blueGhostImage;
+            metrics.register(metricsName);
+        } catch (GameException e) {
+            System.out.println("Note: " + e.getMessage());
         }
-
-        pacmanUpImage = new ImageIcon(getClass().getResource("./pacmanUp.png")).getImage();
-        pacmanDownImage = new ImageIcon(getClass().getResource("./pacmanDown.png")).getImage();
-        pacmanLeftImage = new ImageIcon(getClass().getResource("./pacmanLeft.png")).getImage();
-        pacmanRightImage = new ImageIcon(getClass().getResource("./pacmanRight.png")).getImage();
     }
 
-    public void loadMap() {
-        walls = new ArrayList<>();
-        foods = new ArrayList<>();
-        ghosts = new ArrayList<>();
-
-        for (int r = 0; r < rowCount; r++) {
-            for (int c = 0; c < columnCount; c++) {
-                char ch = tileMap[r].charAt(c);
-                int x = c * tileSize;
-                int y = r * tileSize;
-
-                if (ch == 'X') {
-                    walls.add(new Wall(wallImage, x, y, tileSize, tileSize));
-                } else if (ch == 'b') {
-                    Ghost ghost = new Ghost(blueGhostImage, x, y, tileSize, tileSize, "blue", tileSize);
-                    ghost.setScaredImage(scaredGhostImage);
-                    ghosts.add(ghost);
-                } else if (ch == 'o') {
-                    Ghost ghost = new Ghost(orangeGhostImage, x, y, tileSize, tileSize, "orange", tileSize);
-                    ghost.setScaredImage(scaredGhostImage);
-                    ghosts.add(ghost);
-                } else if (ch == 'p') {
-                    Ghost ghost = new Ghost(pinkGhostImage, x, y, tileSize, tileSize, "pink", tileSize);
-                    ghost.setScaredImage(scaredGhostImage);
-                    ghosts.add(ghost);
-                } else if (ch == 'r') {
-                    Ghost ghost = new Ghost(redGhostImage, x, y, tileSize, tileSize, "red", tileSize);
-                    ghost.setScaredImage(scaredGhostImage);
-                    ghosts.add(ghost);
-                } else if (ch == 'P') {
-                    pacman = new Player(pacmanRightImage, x, y, tileSize, tileSize, tileSize);
-                    pacman.setDirectionImages(pacmanUpImage, pacmanDownImage, pacmanLeftImage, pacmanRightImage);
-                } else if (ch == ' ') {
-                    foods.add(new Food(x + 14, y + 14, 4, 4));
-                }
+    /** Swaps the placeholders for the decoded sprites; runs on the thread that finished decoding. */
+    private void spritesLoaded(SpriteAtlas atlas, Throwable error) {
+        if (error != null) {
+            System.out.println("Note: " + userMessage(error));
+        } else {
+            synchronized (world) {
+                renderer.setSprites(atlas);
             }
         }
+        spritesSettled = true;
+        repaint();
     }
 
     @Override
@@ -149,159 +130,244 @@ public class PacMan extends JPanel implements ActionListener, KeyListener {
         draw(g);
     }
 
+    /** Called on the EDT; the world lock keeps the loop thread from stepping mid-paint. */
     public void draw(Graphics g) {
-        pacman.draw(g);
-        for (Ghost ghost : ghosts) ghost.draw(g);
-        for (Wall wall : walls) wall.draw(g);
-        for (Food food : foods) food.draw(g);
-        
-        g.setColor(Color.WHITE);
-        g.setFont(new Font("Arial", Font.PLAIN, 18));
-        if (gameOver) {
-            g.drawString("Game Over: " + score, tileSize/2, tileSize/2);
-            g.drawString("Press any key to restart", tileSize/2, tileSize);
-        } else {
-            g.drawString("x" + pacman.getLives() + " Score: " + score, tileSize/2, tileSize/2);
+        long start = System.nanoTime();
+        synchronized (world) {
+            renderer.setViewport(getWidth(), getHeight());
+            renderer.draw(g, renderAlpha);
+        }
+        metrics.recordPaint(start, System.nanoTime());
+        if (overlay) drawOverlay(g);
+        if (!interactive) {
+            StartupTrace.mark(StartupTrace.FIRST_FRAME);
+            if (spritesSettled) {
+                interactive = true;
+                StartupTrace.mark(StartupTrace.INTERACTIVE);
+                // starting the platform MBean server takes longer than everything else before the first frame
+                CompletableFuture.runAsync(this::publishMetrics);
+            }
         }
     }
 
-    public void move() {
-        if (pacman.getDirection() != nextDirection) {
-            char prevDirection = pacman.getDirection();
-            pacman.updateDirection(nextDirection);
-            pacman.move();
-            
-            for (Wall wall : walls) {
-                if (pacman.collidesWith(wall)) {
-                    pacman.undoMove();
-                    pacman.updateDirection(prevDirection);
-                    break;
-                }
-            }
+    /** Debug overlay (File > Performance Overlay, F3): the PerfMetrics summary in the bottom-left corner. */
+    private void drawOverlay(Graphics g) {
+        String[] lines = overlayLines;
+        int top = getHeight() - 8 - lines.length * OVERLAY_LINE;
+        g.setColor(OVERLAY_BACKGROUND);
+        g.fillRect(4, top, OVERLAY_WIDTH, lines.length * OVERLAY_LINE + 4);
+        g.setColor(Color.GREEN);
+        g.setFont(OVERLAY_FONT);
+        for (int i = 0; i < lines.length; i++) {
+            g.drawString(lines[i], 8, top + (i + 1) * OVERLAY_LINE - 2);
         }
+    }
+
+    public void setOverlay(boolean enabled) {
+        overlay = enabled;
+        overlayLines = metrics.describe();
+        repaint();
+    }
+
+    public boolean isOverlay() { return overlay; }
+    public PerfMetrics getMetrics() { return metrics; }
 
-        pacman.move();
-        for (Wall wall : walls) {
-            if (pacman.collidesWith(wall)) {
-                pacman.undoMove();
-                break;
+    /** Runs on the EDT once the writer thread has worked out where the score places. */
+    private void handleGameOver(int score, ScoreService.Standing standing) {
+        String name = null;
+        if (standing != null && standing.isHighScore()) {
+            name = JOptionPane.showInputDialog(this, "High Score! " + describeRank(standing) + "\nEnter your name:",
+                "New High Score", JOptionPane.PLAIN_MESSAGE);
+            if (name != null && !name.trim().isEmpty()) {
+                scores.save(name.trim(), score).whenComplete((result, error) -> {
+                    if (error != null) showError(error);
+                });
             }
         }
+        scores.record(name == null || name.trim().isEmpty() ? "Anonymous" : name.trim(), score)
+            .exceptionally(error -> {
+                System.out.println("Note: " + userMessage(error));
+                return null;
+            });
+    }
 
-        for (Ghost ghost : ghosts) {
-            if (ghost.collidesWith(pacman)) {
-                if (!pacman.loseLife()) {
-                    gameOver = true;
-                    handleGameOver();
-                    return;
-                }
-                resetPositions();
-            }
+    private static String describeRank(ScoreService.Standing standing) {
+        if (standing.getGames() == 0) return "";
+        return String.format("Rank #%d of %d games (better than %.1f%%).",
+            standing.getRank(), standing.getGames() + 1, standing.getPercentile());
+    }
 
-            if (ghost.shouldEscapeSpawn(tileSize * 9)) {
-                char prevDir = ghost.getDirection();
-                ghost.updateDirection('U');
-                ghost.move();
-                
-                boolean blocked = false;
-                for (Wall wall : walls) {
-                    if (ghost.collidesWith(wall)) {
-                        blocked = true;
-                        break;
-                    }
-                }
-                
-                if (blocked) {
-                    ghost.undoMove();
-                    ghost.updateDirection(prevDir);
-                } else {
-                    continue;
-                }
-            }
-            
-            ghost.move();
-            
-            for (Wall wall : walls) {
-                if (ghost.collidesWith(wall) || ghost.getX() <= 0 || ghost.getX() + ghost.getWidth() >= boardWidth) {
-                    ghost.undoMove();
-                    ghost.updateDirection(directions[random.nextInt(4)]);
-                }
-            }
+    public void showHighScores() {
+        scores.formattedScores().whenComplete((text, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) showError(error);
+            else JOptionPane.showMessageDialog(this, text, "High Scores", JOptionPane.INFORMATION_MESSAGE);
+        }));
+    }
+
+    public void saveCurrentScore() {
+        String name = JOptionPane.showInputDialog(this, "Enter your name:", "Save Score", JOptionPane.PLAIN_MESSAGE);
+        if (name != null && !name.trim().isEmpty()) {
+            scores.save(name.trim(), world.getScore()).whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+                if (error != null) showError(error);
+                else JOptionPane.showMessageDialog(this, "Score saved!", "Success", JOptionPane.INFORMATION_MESSAGE);
+            }));
         }
+    }
 
-        Food foodEaten = null;
-        for (Food food : foods) {
-            if (pacman.collidesWith(food) && !food.isEaten()) {
-                foodEaten = food;
-                score += food.eat();
+    /** Stops the game and writes any queued scores; called from the exit path. */
+    public boolean shutdown(long timeoutMillis) {
+        gameLoop.stop();
+        setAutopilot(false);
+        saveRecording();
+        metrics.unregister();
+        if (client != null) client.close();
+        return scores.close(timeoutMillis);
+    }
+
+    /**
+     * Lets an MCTS planner drive Pac-Man. It plans one tick ahead on background threads,
+     * so the game loop never waits for it; games restart by themselves, which makes it
+     * usable as a soak test.
+     */
+    public void setAutopilot(boolean enabled) {
+        synchronized (world) {
+            if (enabled && autopilot == null) {
+                int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+                autopilot = new MctsPlanner(world, threads, AUTOPILOT_BUDGET_NANOS);
+                autopilot.requestPlan(world);
+            } else if (!enabled && autopilot != null) {
+                autopilot.shutdown();
+                autopilot = null;
             }
         }
-        if (foodEaten != null) foods.remove(foodEaten);
+    }
 
-        if (foods.isEmpty()) {
-            loadMap();
-            resetPositions();
+    public MctsPlanner getAutopilot() { return autopilot; }
+
+    /**
+     * Switches to deterministic mode: restarts the game from a recorded seed and logs every
+     * input change; the log is written to the file at game over and on exit, and can be
+     * re-run with engine.Replay.
+     */
+    public void startRecording(String filename) throws GameException {
+        synchronized (world) {
+            recording = InputLog.start(world, new Random().nextLong());
+            recordingFile = filename;
         }
+        nextDirection = 'R';
     }
 
-    public void resetPositions() {
-        pacman.reset();
-        for (Ghost ghost : ghosts) {
-            ghost.reset();
-            ghost.updateDirection(directions[random.nextInt(4)]);
+    private void saveRecording() {
+        InputLog log;
+        synchronized (world) {
+            log = recording;
+            if (log != null) log.finish(world);
         }
-    }
-    
-    private void handleGameOver() {
+        if (log == null) return;
         try {
-            if (scoreManager.isHighScore(score)) {
-                String name = JOptionPane.showInputDialog(this, "High Score! Enter your name:", "New High Score", JOptionPane.PLAIN_MESSAGE);
-                if (name != null && !name.trim().isEmpty()) {
-                    scoreManager.saveScore(name.trim(), score);
-                }
-            }
+            log.save(recordingFile);
         } catch (GameException e) {
-            JOptionPane.showMessageDialog(this, e.getUserFriendlyMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            System.out.println("Note: " + e.getUserFriendlyMessage());
         }
     }
-    
-    public void showHighScores() {
-        try {
-            scoreManager.loadScores();
-            JOptionPane.showMessageDialog(this, scoreManager.getFormattedScores(), "High Scores", JOptionPane.INFORMATION_MESSAGE);
-        } catch (GameException e) {
-            JOptionPane.showMessageDialog(this, e.getUserFriendlyMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+
+    private void showError(Throwable error) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> showError(error));
+            return;
         }
+        JOptionPane.showMessageDialog(this, userMessage(error), "Error", JOptionPane.ERROR_MESSAGE);
     }
-    
-    public void saveCurrentScore() {
-        String name = JOptionPane.showInputDialog(this, "Enter your name:", "Save Score", JOptionPane.PLAIN_MESSAGE);
-        if (name != null && !name.trim().isEmpty()) {
-            try {
-                scoreManager.saveScore(name.trim(), score);
-                JOptionPane.showMessageDialog(this, "Score saved!", "Success", JOptionPane.INFORMATION_MESSAGE);
-            } catch (GameException e) {
-                JOptionPane.showMessageDialog(this, e.getUserFriendlyMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            }
-        }
+
+    private static String userMessage(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof GameException ? ((GameException) cause).getUserFriendlyMessage() : cause.getMessage();
     }
-    
+
     public void newGame() {
-        loadMap();
-        resetPositions();
-        pacman.setLives(3);
-        score = 0;
-        gameOver = false;
+        if (client != null) return; // the server restarts the room
+        synchronized (world) {
+            if (recordingFile == null) {
+                world.newGame();
+            } else {
+                try {
+                    recording = InputLog.start(world, new Random().nextLong());
+                } catch (GameException e) {
+                    recording = null;
+                    world.newGame();
+                }
+            }
+            if (autopilot != null) autopilot.requestPlan(world);
+        }
         nextDirection = 'R';
         if (!gameLoop.isRunning()) gameLoop.start();
         requestFocus();
     }
 
     @Override
-    public void actionPerformed(ActionEvent e) {
-        move();
-        repaint();
-        if (gameOver) gameLoop.stop();
+    public void tick() {
+        long start = System.nanoTime();
+        long bytes = PerfMetrics.allocatedBytes();
+        long checks = world.getCollisionChecks();
+        if (client != null) networkTick();
+        else localTick();
+        long end = System.nanoTime();
+        metrics.recordTick(end - start, world.getCollisionChecks() - checks,
+            bytes < 0 ? -1 : PerfMetrics.allocatedBytes() - bytes);
+    }
+
+    private void localTick() {
+        boolean ended;
+        int score;
+        MctsPlanner pilot;
+        synchronized (world) {
+            pilot = autopilot;
+            if (pilot != null) nextDirection = pilot.getDirection();
+            boolean wasOver = world.isGameOver();
+            if (recording != null) recording.step(world, nextDirection);
+            else world.step(nextDirection);
+            ended = !wasOver && world.isGameOver();
+            score = world.getScore();
+            if (pilot != null && !ended) pilot.requestPlan(world);
+        }
+        if (ended && pilot != null) {
+            // bot games stay out of the score history, so they cannot skew players' rank and percentile
+            saveRecording();
+            SwingUtilities.invokeLater(this::newGame);
+        } else if (ended) {
+            saveRecording();
+            scores.standing(score).whenComplete((standing, error) ->
+                SwingUtilities.invokeLater(() -> handleGameOver(score, standing)));
+        }
+    }
+
+    /** Sends the input and shows the server's state; scores stay with the server's room. */
+    private void networkTick() {
+        synchronized (world) {
+            MctsPlanner pilot = autopilot;
+            if (pilot != null) nextDirection = pilot.getDirection();
+            try {
+                client.update(world, nextDirection);
+            } catch (GameException e) {
+                gameLoop.stop();
+                showError(e);
+                return;
+            }
+            if (pilot != null) pilot.requestPlan(world);
+        }
+    }
+
+    @Override
+    public void render(double alpha) {
+        renderAlpha = alpha;
+        synchronized (world) {
+            renderer.repaintDirty(this, alpha);
+        }
+        if (overlay && System.nanoTime() - overlayRefreshed > OVERLAY_REFRESH_NANOS) {
+            overlayRefreshed = System.nanoTime();
+            overlayLines = metrics.describe();
+            repaint(0, getHeight() - 8 - overlayLines.length * OVERLAY_LINE, OVERLAY_WIDTH + 8, overlayLines.length * OVERLAY_LINE + 8);
+        }
     }
 
     @Override public void keyTyped(KeyEvent e) {}
@@ -309,7 +375,7 @@ public class PacMan extends JPanel implements ActionListener, KeyListener {
 
     @Override
     public void keyPressed(KeyEvent e) {
-        if (gameOver) newGame();
+        if (world.isGameOver()) newGame();
         
         if (e.getKeyCode() == KeyEvent.VK_UP) nextDirection = 'U';
         else if (e.getKeyCode() == KeyEvent.VK_DOWN) nextDirection = 'D';
@@ -317,6 +383,8 @@ public class PacMan extends JPanel implements ActionListener, KeyListener {
         else if (e.getKeyCode() == KeyEvent.VK_RIGHT) nextDirection = 'R';
     }
     
-    public int getScore() { return score; }
-    public boolean isGameOver() { return gameOver; }
+    public int getScore() { return world.getScore(); }
+    public boolean isGameOver() { return world.isGameOver(); }
+    public GameWorld getWorld() { return world; }
+    public FixedStepLoop.Stats getLoopStats() { return gameLoop.getStats(); }
 }
@@ -0,0 +1,69 @@
+package bench;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import engine.GameWorld;
+import render.WorldRenderer;
+
+/**
+ * Asserts that the steady-state tick allocates nothing, and reports paint allocation.
+ * Exits with status 1 if a tick allocates, so it can gate a build script.
+ * Run with: java -Djava.awt.headless=true bench.AllocationCheck
+ */
+public class AllocationCheck {
+
+    private static final char[] DIRECTIONS = {'U', 'D', 'L', 'R'};
+    private static final int WARMUP_TICKS = 200_000;
+    private static final int MEASURED_TICKS = 100_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        long threadId = Thread.currentThread().getId();
+        GameWorld world = new GameWorld(GameWorld.DEFAULT_MAP, GameWorld.DEFAULT_TILE_SIZE, new Random(1));
+        Random inputs = new Random(7);
+        char[] script = new char[MEASURED_TICKS];
+        for (int i = 0; i < script.length; i++) script[i] = DIRECTIONS[inputs.nextInt(4)];
+
+        // game over and new game are not steady state, so keep the world alive for the run
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            world.step(script[i % script.length]);
+            if (world.isGameOver()) world.newGame();
+        }
+        world.newGame();
+        world.getPacman().setLives(Integer.MAX_VALUE);
+
+        long overhead = measureOverhead(threadId);
+        long before = THREADS.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_TICKS; i++) world.step(script[i]);
+        long tickBytes = THREADS.getThreadAllocatedBytes(threadId) - before - overhead;
+
+        WorldRenderer renderer = new WorldRenderer(world);
+        BufferedImage frame = new BufferedImage(world.getBoardWidth(), world.getBoardHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = frame.createGraphics();
+        for (int i = 0; i < 2_000; i++) renderer.draw(g, 0.5);
+        before = THREADS.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 1_000; i++) renderer.draw(g, 0.5);
+        long paintBytes = THREADS.getThreadAllocatedBytes(threadId) - before - overhead;
+        g.dispose();
+
+        System.out.println(String.format("tick:  %d bytes over %d ticks (%.2f B/tick)", tickBytes, MEASURED_TICKS, tickBytes / (double) MEASURED_TICKS));
+        System.out.println(String.format("paint: %d bytes over 1000 frames (%.2f B/frame)", paintBytes, paintBytes / 1000.0));
+
+        if (tickBytes > 0) {
+            System.out.println("FAIL: steady-state tick allocates");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static long measureOverhead(long threadId) {
+        long first = THREADS.getThreadAllocatedBytes(threadId);
+        long second = THREADS.getThreadAllocatedBytes(threadId);
+        return second - first;
+    }
+}
@@ -0,0 +1,73 @@
+package bench;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import engine.GameWorld;
+import engine.MctsPlanner;
+
+/**
+ * MCTS autopilot: decision latency against its budget and playouts/sec at several worker
+ * counts, then headless games played by the planner against random key presses.
+ * Run with: java bench.AutopilotBenchmark
+ */
+public class AutopilotBenchmark {
+
+    private static final char[] DIRECTIONS = {'U', 'D', 'L', 'R'};
+    private static final long BUDGET_NANOS = 30_000_000L;
+    private static final int DECISIONS = 60;
+    private static final long GAME_TICKS = 2_400; // two minutes at 20 ticks/sec
+
+    public static void main(String[] args) throws Exception {
+        System.out.println(String.format("%d cores; budget %d ms", Runtime.getRuntime().availableProcessors(), BUDGET_NANOS / 1_000_000));
+        System.out.println(String.format("%-8s %12s %12s %12s %10s %14s %12s",
+            "threads", "p50 ms", "p99 ms", "max ms", "overruns", "playouts/sec", "per decision"));
+        latency(1, false); // JIT warm-up
+        for (int threads : new int[]{1, 2, 4}) {
+            latency(threads, true);
+        }
+
+        System.out.println(String.format("%-24s %8s %10s %10s %10s", "player", "games", "avg score", "avg ticks", "lives left"));
+        play("random keys", null, 3);
+        play("MCTS 5 ms / decision", 5_000_000L, 3);
+    }
+
+    private static void latency(int threads, boolean print) {
+        GameWorld world = new GameWorld(GameWorld.DEFAULT_MAZE, GameWorld.DEFAULT_TILE_SIZE, new Random(1));
+        MctsPlanner planner = new MctsPlanner(world, threads, BUDGET_NANOS);
+        long[] millis = new long[DECISIONS];
+        for (int i = 0; i < DECISIONS; i++) {
+            char move = planner.plan(world);
+            millis[i] = planner.getLastLatencyNanos();
+            for (int t = 0; t < 5; t++) world.step(move);
+        }
+        Arrays.sort(millis);
+        if (print) System.out.println(String.format("%-8d %12.1f %12.1f %12.1f %10d %14.0f %12d",
+            threads, millis[DECISIONS / 2] / 1e6, millis[DECISIONS * 99 / 100] / 1e6, millis[DECISIONS - 1] / 1e6,
+            planner.getOverruns(), planner.getPlayoutsPerSecond(), planner.getPlayouts() / planner.getDecisions()));
+        planner.shutdown();
+    }
+
+    private static void play(String name, Long budgetNanos, int games) {
+        long totalScore = 0;
+        long totalTicks = 0;
+        long totalLives = 0;
+        for (int g = 0; g < games; g++) {
+            GameWorld world = new GameWorld(GameWorld.DEFAULT_MAZE, GameWorld.DEFAULT_TILE_SIZE, new Random(100 + g));
+            MctsPlanner planner = budgetNanos == null ? null : new MctsPlanner(world, 1, budgetNanos);
+            Random keys = new Random(200 + g);
+            while (!world.isGameOver() && world.getTick() < GAME_TICKS) {
+                char move;
+                if (planner != null) move = planner.plan(world);
+                else move = world.getTick() % 20 == 0 ? DIRECTIONS[keys.nextInt(4)] : world.getNextDirection();
+                world.step(move);
+            }
+            totalScore += world.getScore();
+            totalTicks += world.getTick();
+            totalLives += world.isGameOver() ? 0 : world.getLives();
+            if (planner != null) planner.shutdown();
+        }
+        System.out.println(String.format("%-24s %8d %10d %10d %10.1f",
+            name, games, totalScore / games, totalTicks / games, totalLives / (double) games));
+    }
+}
@@ -0,0 +1,35 @@
+package bench;
+
+import engine.BatchSimulator;
+
+/**
+ * Scaling report for BatchSimulator at 1/2/4/8/16 threads.
+ * Run with: java -Djava.awt.headless=true bench.BatchScalingBenchmark [games] [maxTicks]
+ */
+public class BatchScalingBenchmark {
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        int maxTicks = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int[] threadCounts = {1, 2, 4, 8, 16};
+
+        BatchSimulator simulator = new BatchSimulator(maxTicks);
+        simulator.run(games / 4, 0, 1); // warm-up
+
+        System.out.println("cores available: " + Runtime.getRuntime().availableProcessors());
+        System.out.println(String.format("%-8s %12s %14s %8s", "threads", "seconds", "ticks/sec", "speedup"));
+
+        double baseline = 0;
+        BatchSimulator.Summary summary = null;
+        for (int threads : threadCounts) {
+            long start = System.nanoTime();
+            summary = simulator.run(games, 1000, threads);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            double ticksPerSecond = summary.getTotalTicks() / seconds;
+            if (baseline == 0) baseline = ticksPerSecond;
+
+            System.out.println(String.format("%-8d %12.2f %14.0f %7.2fx", threads, seconds, ticksPerSecond, ticksPerSecond / baseline));
+        }
+        System.out.println(summary);
+    }
+}
@@ -0,0 +1,91 @@
+package bench;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Minimal microbenchmark harness: timed warm-up, timed measurement,
+ * and per-operation allocation from the thread's allocation counter.
+ */
+public class Bench {
+
+    public interface Operation {
+        void run() throws Exception;
+    }
+
+    public static class Result {
+        private String name;
+        private double nanosPerOp;
+        private double bytesPerOp;
+        private long gcCount;
+        private long operations;
+
+        public Result(String name, double nanosPerOp, double bytesPerOp, long gcCount, long operations) {
+            this.name = name;
+            this.nanosPerOp = nanosPerOp;
+            this.bytesPerOp = bytesPerOp;
+            this.gcCount = gcCount;
+            this.operations = operations;
+        }
+
+        public String getName() { return name; }
+        public double getNanosPerOp() { return nanosPerOp; }
+        public double getBytesPerOp() { return bytesPerOp; }
+        public long getGcCount() { return gcCount; }
+        public long getOperations() { return operations; }
+
+        @Override
+        public String toString() {
+            return String.format("%-28s %14.1f %12.1f %8d %12d", name, nanosPerOp, bytesPerOp, gcCount, operations);
+        }
+    }
+
+    public static final String HEADER = String.format("%-28s %14s %12s %8s %12s", "benchmark", "ns/op", "B/op", "gc", "ops");
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private long warmupMillis;
+    private long measureMillis;
+
+    public Bench(long warmupMillis, long measureMillis) {
+        this.warmupMillis = warmupMillis;
+        this.measureMillis = measureMillis;
+    }
+
+    public Result run(String name, Operation operation) throws Exception {
+        loop(operation, warmupMillis);
+
+        long threadId = Thread.currentThread().getId();
+        long gcBefore = gcCount();
+        long bytesBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long operations = loop(operation, measureMillis);
+        long elapsed = System.nanoTime() - start;
+        long bytes = THREADS.getThreadAllocatedBytes(threadId) - bytesBefore;
+        long gcs = gcCount() - gcBefore;
+
+        return new Result(name, (double) elapsed / operations, (double) bytes / operations, gcs, operations);
+    }
+
+    /** Runs the operation in growing batches so the clock is read rarely. */
+    private static long loop(Operation operation, long millis) throws Exception {
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+        long operations = 0;
+        int batch = 1;
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < batch; i++) operation.run();
+            operations += batch;
+            if (batch < 1 << 16) batch <<= 1;
+        }
+        return operations;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+}
@@ -0,0 +1,92 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import model.Wall;
+import util.CollisionGrid;
+
+/**
+ * Compares the old linear wall scan against CollisionGrid as mazes grow.
+ * Run with: java bench.CollisionBenchmark
+ */
+public class CollisionBenchmark {
+
+    private static final int TILE_SIZE = 32;
+    // one tick = Pac-Man turn attempt + move + 4 ghosts (+1 spawn escape check)
+    private static final int CHECKS_PER_TICK = 7;
+
+    public static void main(String[] args) {
+        int[] sizes = {21, 50, 100, 250, 500};
+
+        System.out.println(String.format("%-10s %10s %16s %16s", "maze", "walls", "linear ns/tick", "grid ns/tick"));
+        for (int size : sizes) {
+            ArrayList<Wall> walls = new ArrayList<>();
+            CollisionGrid grid = new CollisionGrid(size, size, TILE_SIZE);
+            buildMaze(size, walls, grid);
+
+            int[][] probes = buildProbes(size, 1024);
+            long linear = time(() -> linearTick(walls, probes), size >= 250 ? 20 : 200);
+            long indexed = time(() -> gridTick(grid, probes), 200_000);
+
+            System.out.println(String.format("%-10s %10d %16d %16d", size + "x" + size, walls.size(), linear, indexed));
+        }
+    }
+
+    private static void buildMaze(int size, ArrayList<Wall> walls, CollisionGrid grid) {
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                boolean border = r == 0 || c == 0 || r == size - 1 || c == size - 1;
+                boolean pillar = r % 2 == 0 && c % 2 == 0;
+                if (border || pillar) {
+                    walls.add(new Wall(null, c * TILE_SIZE, r * TILE_SIZE, TILE_SIZE, TILE_SIZE));
+                    grid.setWall(r, c);
+                }
+            }
+        }
+    }
+
+    private static int[][] buildProbes(int size, int count) {
+        Random random = new Random(42);
+        int[][] probes = new int[count][];
+        for (int i = 0; i < count; i++) {
+            int x = random.nextInt(size * TILE_SIZE / 8) * 8;
+            int y = random.nextInt(size * TILE_SIZE / 8) * 8;
+            probes[i] = new int[]{x, y};
+        }
+        return probes;
+    }
+
+    private static int cursor = 0;
+    private static int sink = 0;
+    // moved to each probe position, so the scan is timed without an allocation per check
+    private static final Wall PROBE = new Wall(null, 0, 0, TILE_SIZE, TILE_SIZE);
+
+    private static void linearTick(ArrayList<Wall> walls, int[][] probes) {
+        for (int i = 0; i < CHECKS_PER_TICK; i++) {
+            int[] p = probes[cursor++ & (probes.length - 1)];
+            PROBE.setX(p[0]);
+            PROBE.setY(p[1]);
+            for (Wall wall : walls) {
+                if (PROBE.collidesWith(wall)) {
+                    sink++;
+                    break;
+                }
+            }
+        }
+    }
+
+    private static void gridTick(CollisionGrid grid, int[][] probes) {
+        for (int i = 0; i < CHECKS_PER_TICK; i++) {
+            int[] p = probes[cursor++ & (probes.length - 1)];
+            if (grid.overlapsWall(p[0], p[1], TILE_SIZE, TILE_SIZE)) sink++;
+        }
+    }
+
+    private static long time(Runnable tick, int iterations) {
+        for (int i = 0; i < iterations; i++) tick.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) tick.run();
+        return (System.nanoTime() - start) / iterations;
+    }
+}
@@ -0,0 +1,136 @@
+package bench;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import engine.DistanceTable;
+import engine.FlowField;
+import engine.FlowFieldGhostAI;
+import engine.GameWorld;
+import engine.GhostAI;
+import model.Ghost;
+import model.Player;
+import util.CollisionGrid;
+
+/**
+ * Stress mode: hundreds of chasing ghosts on a large maze.
+ * Compares a shared flow field (sync and async) with one BFS per ghost decision.
+ * Run with: java -Djava.awt.headless=true bench.FlowFieldBenchmark
+ */
+public class FlowFieldBenchmark {
+
+    private static final char[] DIRECTIONS = {'U', 'D', 'L', 'R'};
+    private static final int SIDE = 101;
+    private static final int TICKS = 2_000;
+
+    public static void main(String[] args) {
+        System.out.println(String.format("%-8s %-16s %12s %10s", "ghosts", "steering", "ticks/sec", "searches"));
+        for (int ghosts : new int[]{100, 500, 1000}) {
+            String[] map = stressMap(SIDE, ghosts, 11);
+            run(map, ghosts, "flow field", world -> new FlowFieldGhostAI(new FlowField(world.getWallGrid(), false)));
+            run(map, ghosts, "flow field async", world -> new FlowFieldGhostAI(new FlowField(world.getWallGrid(), true)));
+            run(map, ghosts, "bfs per ghost", world -> new BfsGhostAI(world.getWallGrid()));
+        }
+    }
+
+    private interface AIFactory {
+        GhostAI create(GameWorld world);
+    }
+
+    private static void run(String[] map, int ghosts, String name, AIFactory factory) {
+        GameWorld world = new GameWorld(map, GameWorld.DEFAULT_TILE_SIZE, new Random(1));
+        GhostAI ai = factory.create(world);
+        world.setGhostAI(ai);
+        world.getPacman().setLives(Integer.MAX_VALUE);
+        Random inputs = new Random(2);
+
+        char input = 'L';
+        for (int i = 0; i < TICKS / 4; i++) {
+            if ((i & 15) == 0) input = DIRECTIONS[inputs.nextInt(4)];
+            world.step(input);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < TICKS; i++) {
+            if ((i & 15) == 0) input = DIRECTIONS[inputs.nextInt(4)];
+            world.step(input);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long searches = ai instanceof FlowFieldGhostAI ? ((FlowFieldGhostAI) ai).getField().getSearches() : ((BfsGhostAI) ai).searches;
+        System.out.println(String.format("%-8d %-16s %12.0f %10d", ghosts, name, TICKS / seconds, searches));
+        if (ai instanceof FlowFieldGhostAI) ((FlowFieldGhostAI) ai).getField().shutdown();
+    }
+
+    /** Pillar maze with Pac-Man in the middle and ghosts on random open tiles. */
+    static String[] stressMap(int side, int ghosts, long seed) {
+        char[][] tiles = new char[side][side];
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                boolean border = r == 0 || c == 0 || r == side - 1 || c == side - 1;
+                tiles[r][c] = border || (r % 2 == 0 && c % 2 == 0) ? 'X' : ' ';
+            }
+        }
+        tiles[side / 2][side / 2] = 'P';
+        Random random = new Random(seed);
+        for (int placed = 0; placed < ghosts; ) {
+            int r = 1 + random.nextInt(side - 2);
+            int c = 1 + random.nextInt(side - 2);
+            if (tiles[r][c] == ' ' && Math.abs(r - side / 2) + Math.abs(c - side / 2) > 10) {
+                tiles[r][c] = "rpbo".charAt(placed % 4);
+                placed++;
+            }
+        }
+        String[] map = new String[side];
+        for (int r = 0; r < side; r++) map[r] = new String(tiles[r]);
+        return map;
+    }
+
+    /** Baseline: each ghost runs its own BFS to Pac-Man at every decision. */
+    private static class BfsGhostAI implements GhostAI {
+        private static final int[] ROW_STEP = {-1, 1, 0, 0};
+        private static final int[] COLUMN_STEP = {0, 0, -1, 1};
+
+        private CollisionGrid grid;
+        private int columns;
+        private int[] queue;
+        private byte[] firstStep;
+        long searches;
+
+        BfsGhostAI(CollisionGrid grid) {
+            this.grid = grid;
+            this.columns = grid.getColumnCount();
+            this.queue = new int[grid.getRowCount() * columns];
+            this.firstStep = new byte[grid.getRowCount() * columns];
+        }
+
+        @Override
+        public char chooseDirection(GameWorld world, Ghost ghost) {
+            int tileSize = world.getTileSize();
+            Player pacman = world.getPacman();
+            int from = (ghost.getY() / tileSize) * columns + ghost.getX() / tileSize;
+            int to = ((pacman.getY() + tileSize / 2) / tileSize) * columns + (pacman.getX() + tileSize / 2) / tileSize;
+            searches++;
+            if (from == to) return ghost.getDirection();
+
+            Arrays.fill(firstStep, (byte) -2);
+            int head = 0;
+            int tail = 0;
+            firstStep[from] = -1;
+            queue[tail++] = from;
+            while (head < tail) {
+                int tile = queue[head++];
+                for (int d = 0; d < 4; d++) {
+                    int r = tile / columns + ROW_STEP[d];
+                    int c = tile % columns + COLUMN_STEP[d];
+                    if (r < 0 || c < 0 || r >= grid.getRowCount() || c >= columns || grid.isWall(r, c)) continue;
+                    int next = r * columns + c;
+                    if (firstStep[next] != -2) continue;
+                    firstStep[next] = tile == from ? (byte) d : firstStep[tile];
+                    if (next == to) return DistanceTable.DIRECTIONS[firstStep[next]];
+                    queue[tail++] = next;
+                }
+            }
+            return ghost.getDirection();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package bench;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Random;
+
+import engine.GameWorld;
+import model.Ghost;
+import model.Player;
+import model.Wall;
+import render.WorldRenderer;
+import util.CollisionGrid;
+import util.ScoreManager;
+
+/**
+ * Benchmarks the game's hot paths: tick, collision, level load/reset, score I/O and rendering.
+ * Run with: java -Djava.awt.headless=true bench.HotPathBenchmark [output file]
+ * Compare against bench/baseline.txt to spot regressions.
+ */
+public class HotPathBenchmark {
+
+    private static final char[] DIRECTIONS = {'U', 'D', 'L', 'R'};
+
+    private static int sink;
+
+    public static void main(String[] args) throws Exception {
+        Bench bench = new Bench(1000, 2000);
+        ArrayList<Bench.Result> results = new ArrayList<>();
+
+        GameWorld world = new GameWorld(GameWorld.DEFAULT_MAZE, GameWorld.DEFAULT_TILE_SIZE, new Random(1));
+        Random inputs = new Random(7);
+        results.add(bench.run("tick", () -> {
+            if ((world.getTick() & 15) == 0) world.step(DIRECTIONS[inputs.nextInt(4)]);
+            else world.step(world.getNextDirection());
+            if (world.isGameOver()) world.newGame();
+        }));
+
+        Player pacman = world.getPacman();
+        Ghost ghost = world.getGhosts().get(0);
+        results.add(bench.run("collision.entity", () -> {
+            if (ghost.collidesWith(pacman)) sink++;
+        }));
+
+        // the world no longer keeps Wall objects; rebuild the old list to keep the scan comparable
+        CollisionGrid grid = world.getWallGrid();
+        int tileSize = world.getTileSize();
+        ArrayList<Wall> walls = new ArrayList<>();
+        for (int r = 0; r < grid.getRowCount(); r++) {
+            for (int c = 0; c < grid.getColumnCount(); c++) {
+                if (grid.isWall(r, c)) walls.add(new Wall(null, c * tileSize, r * tileSize, tileSize, tileSize));
+            }
+        }
+        results.add(bench.run("collision.wallScan", () -> {
+            for (Wall wall : walls) {
+                if (pacman.collidesWith(wall)) {
+                    sink++;
+                    break;
+                }
+            }
+        }));
+
+        results.add(bench.run("collision.grid", () -> {
+            if (grid.collidesWithWall(pacman)) sink++;
+        }));
+
+        results.add(bench.run("level.load", () -> {
+            GameWorld fresh = new GameWorld(GameWorld.DEFAULT_MAZE, GameWorld.DEFAULT_TILE_SIZE, new Random(2));
+            sink += fresh.getPellets().getRemaining();
+        }));
+        results.add(bench.run("level.reset", world::newGame));
+
+        File scoreFile = File.createTempFile("bench-scores", ".txt");
+        scoreFile.deleteOnExit();
+        ScoreManager scores = new ScoreManager(scoreFile.getPath());
+        Random scoreValues = new Random(3);
+        results.add(bench.run("score.save", () -> scores.saveScore("Bench", scoreValues.nextInt(10_000))));
+        results.add(bench.run("score.load", scores::loadScores));
+
+        WorldRenderer renderer = new WorldRenderer(world);
+        BufferedImage frame = new BufferedImage(world.getBoardWidth(), world.getBoardHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = frame.createGraphics();
+        results.add(bench.run("render.offscreen", () -> renderer.draw(g)));
+        Graphics2D clipped = frame.createGraphics();
+        clipped.setClip(pacman.getX() - 32, pacman.getY() - 32, 96, 96);
+        results.add(bench.run("render.dirtyRegion", () -> renderer.draw(clipped)));
+        clipped.dispose();
+        g.dispose();
+
+        System.out.println(Bench.HEADER);
+        for (Bench.Result result : results) System.out.println(result);
+
+        if (args.length > 0) {
+            PrintWriter writer = new PrintWriter(new FileWriter(args[0]));
+            try {
+                writer.println("# java -Djava.awt.headless=true bench.HotPathBenchmark, " + System.getProperty("java.version"));
+                writer.println(Bench.HEADER);
+                for (Bench.Result result : results) writer.println(result);
+            } finally {
+                writer.close();
+            }
+        }
+    }
+}
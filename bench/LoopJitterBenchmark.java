@@ -0,0 +1,57 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import engine.FixedStepLoop;
+import engine.GameWorld;
+
+/**
+ * Runs the fixed-step loop against a headless world, once idle and once with a slow,
+ * allocation-heavy "renderer", and prints tick lateness, frame jitter and drift.
+ * Run with: java -Djava.awt.headless=true bench.LoopJitterBenchmark [seconds]
+ */
+public class LoopJitterBenchmark {
+
+    private static final char[] DIRECTIONS = {'U', 'D', 'L', 'R'};
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+
+        System.out.println("idle:   " + run(seconds, false));
+        System.out.println("loaded: " + run(seconds, true));
+    }
+
+    private static FixedStepLoop.Stats run(int seconds, boolean loaded) throws InterruptedException {
+        GameWorld world = new GameWorld(GameWorld.DEFAULT_MAP, GameWorld.DEFAULT_TILE_SIZE, new Random(1));
+        Random random = new Random(2);
+        ArrayList<byte[]> garbage = new ArrayList<>();
+
+        FixedStepLoop loop = new FixedStepLoop(50_000_000L, 1_000_000_000L / 60, 5, new FixedStepLoop.Listener() {
+            @Override
+            public void tick() {
+                world.step(DIRECTIONS[random.nextInt(4)]);
+                if (world.isGameOver()) world.newGame();
+            }
+
+            @Override
+            public void render(double alpha) {
+                if (!loaded) return;
+                // occasional 30-80ms stall plus steady garbage, like a busy EDT
+                if (random.nextInt(20) == 0) busyWait(30 + random.nextInt(50));
+                garbage.add(new byte[256 * 1024]);
+                if (garbage.size() > 64) garbage.clear();
+            }
+        });
+
+        loop.start();
+        Thread.sleep(seconds * 1000L);
+        loop.stop();
+        return loop.getStats();
+    }
+
+    private static void busyWait(long millis) {
+        long end = System.nanoTime() + millis * 1_000_000L;
+        while (System.nanoTime() < end) Thread.onSpinWait();
+    }
+}
@@ -0,0 +1,112 @@
+package bench;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Random;
+
+import engine.GameWorld;
+import engine.Maze;
+import engine.MazeCompiler;
+import model.Wall;
+
+/**
+ * Load time and retained heap for large mazes: the old text parse that also built one
+ * Wall per wall tile, the text parse into a packed Maze, and the memory-mapped binary.
+ * Run with: java -Djava.awt.headless=true bench.MazeLoadBenchmark
+ */
+public class MazeLoadBenchmark {
+
+    private static final int REPEATS = 5;
+
+    private interface Loader {
+        Object load() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println(String.format("%-10s %-22s %12s %10s %10s %12s",
+            "maze", "path", "file bytes", "maze ms", "world ms", "heap MB"));
+        for (int side : new int[]{500, 1000, 2000}) {
+            File text = File.createTempFile("bench-maze", ".maze");
+            File binary = File.createTempFile("bench-maze", ".mzb");
+            text.deleteOnExit();
+            binary.deleteOnExit();
+            writeText(FlowFieldBenchmark.stressMap(side, 4, side), text);
+            MazeCompiler.compile(MazeCompiler.readText(text.getPath()), binary.getPath(), true);
+
+            String name = side + "x" + side;
+            report(name, "text + Wall objects", text.length(), () -> readLegacy(text.getPath()),
+                maze -> new GameWorld((String[]) ((Object[]) maze)[0], GameWorld.DEFAULT_TILE_SIZE, new Random(1)));
+            report(name, "text -> Maze", text.length(), () -> MazeCompiler.readText(text.getPath()),
+                maze -> new GameWorld((Maze) maze, GameWorld.DEFAULT_TILE_SIZE, new Random(1)));
+            report(name, "binary mmap", binary.length(), () -> MazeCompiler.load(binary.getPath()),
+                maze -> new GameWorld((Maze) maze, GameWorld.DEFAULT_TILE_SIZE, new Random(1)));
+        }
+    }
+
+    private interface WorldBuilder {
+        GameWorld build(Object maze);
+    }
+
+    private static void report(String name, String path, long fileBytes, Loader loader, WorldBuilder builder) throws Exception {
+        double bestMaze = Double.MAX_VALUE;
+        double bestWorld = Double.MAX_VALUE;
+        for (int i = 0; i < REPEATS; i++) {
+            long start = System.nanoTime();
+            Object maze = loader.load();
+            long loaded = System.nanoTime();
+            builder.build(maze);
+            long built = System.nanoTime();
+            bestMaze = Math.min(bestMaze, (loaded - start) / 1e6);
+            bestWorld = Math.min(bestWorld, (built - loaded) / 1e6);
+        }
+
+        long before = usedHeap();
+        Object maze = loader.load();
+        GameWorld world = builder.build(maze);
+        long retained = usedHeap() - before;
+        if (world.getPellets().getRemaining() < 0 || maze == null) throw new IllegalStateException();
+
+        System.out.println(String.format("%-10s %-22s %12d %10.1f %10.1f %12.1f",
+            name, path, fileBytes, bestMaze, bestWorld, retained / (1024.0 * 1024.0)));
+    }
+
+    /** The pre-compiler path: keep the row strings and create a Wall per wall tile. */
+    private static Object[] readLegacy(String filename) throws Exception {
+        ArrayList<String> rows = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new FileReader(filename));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) rows.add(line);
+        } finally {
+            reader.close();
+        }
+        String[] tileMap = rows.toArray(new String[0]);
+        int tileSize = GameWorld.DEFAULT_TILE_SIZE;
+        ArrayList<Wall> walls = new ArrayList<>();
+        for (int r = 0; r < tileMap.length; r++) {
+            for (int c = 0; c < tileMap[r].length(); c++) {
+                if (tileMap[r].charAt(c) == 'X') walls.add(new Wall(null, c * tileSize, r * tileSize, tileSize, tileSize));
+            }
+        }
+        return new Object[]{tileMap, walls};
+    }
+
+    private static void writeText(String[] map, File file) throws Exception {
+        PrintWriter writer = new PrintWriter(new FileWriter(file));
+        try {
+            for (String row : map) writer.println(row);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,101 @@
+package bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+import javax.management.ObjectName;
+
+import engine.GameWorld;
+import util.Histogram;
+import util.PerfMetrics;
+
+/**
+ * PerfMetrics: histogram accuracy against exact percentiles, the cost of recording (alone,
+ * per tick with every counter read, and from several threads at once), a tick with and
+ * without instrumentation, and a read of the published MBean.
+ * Run with: java bench.MetricsBenchmark
+ */
+public class MetricsBenchmark {
+
+    private static final char[] DIRECTIONS = {'U', 'D', 'L', 'R'};
+
+    public static void main(String[] args) throws Exception {
+        checkAccuracy();
+
+        Bench bench = new Bench(500, 1000);
+        System.out.println(Bench.HEADER);
+        Histogram histogram = new Histogram();
+        long[] value = {0};
+        System.out.println(bench.run("histogram.record", () -> histogram.record(value[0]++ & 0xFFFFF)));
+
+        PerfMetrics metrics = new PerfMetrics();
+        GameWorld world = new GameWorld(GameWorld.DEFAULT_MAZE, GameWorld.DEFAULT_TILE_SIZE, new Random(1));
+        world.getPacman().setLives(Integer.MAX_VALUE);
+        Random keys = new Random(2);
+        Bench.Result instrumentation = bench.run("tick instrumentation", () -> {
+            long start = System.nanoTime();
+            long bytes = PerfMetrics.allocatedBytes();
+            long checks = world.getCollisionChecks();
+            metrics.recordTick(System.nanoTime() - start, world.getCollisionChecks() - checks, PerfMetrics.allocatedBytes() - bytes);
+        });
+        System.out.println(instrumentation);
+        Bench.Result plain = bench.run("world.step", () -> world.step(DIRECTIONS[keys.nextInt(4)]));
+        System.out.println(plain);
+        Bench.Result measured = bench.run("world.step + instrumentation", () -> {
+            long start = System.nanoTime();
+            long bytes = PerfMetrics.allocatedBytes();
+            long checks = world.getCollisionChecks();
+            world.step(DIRECTIONS[keys.nextInt(4)]);
+            metrics.recordTick(System.nanoTime() - start, world.getCollisionChecks() - checks, PerfMetrics.allocatedBytes() - bytes);
+        });
+        System.out.println(measured);
+        System.out.println(String.format("overhead per tick: %.0f ns; %.1f collision checks per tick, %.1f bytes allocated per tick",
+            measured.getNanosPerOp() - plain.getNanosPerOp(), metrics.getCollisionsPerTickMean(), metrics.getBytesPerTickMean()));
+
+        contended(4, 2_000_000);
+
+        metrics.register("benchmark");
+        Object p99 = ManagementFactory.getPlatformMBeanServer()
+            .getAttribute(new ObjectName("pacman:type=PerfMetrics,name=\"benchmark\""), "TickP99Micros");
+        System.out.println(String.format("JMX TickP99Micros = %.3f (%d ticks)", (Double) p99, metrics.getTickCount()));
+        metrics.unregister();
+    }
+
+    /** Uniform and long-tailed samples: every percentile must be within 3.2% of exact. */
+    private static void checkAccuracy() {
+        Random random = new Random(3);
+        for (int run = 0; run < 2; run++) {
+            Histogram histogram = new Histogram();
+            long[] values = new long[200_000];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = run == 0 ? random.nextInt(1_000_000) : (long) (1000 * Math.exp(random.nextGaussian() * 2));
+                histogram.record(values[i]);
+            }
+            Arrays.sort(values);
+            double worst = 0;
+            for (double percentile : new double[]{1, 10, 50, 90, 99, 99.9}) {
+                long exact = values[(int) Math.ceil(values.length * percentile / 100) - 1];
+                double error = Math.abs(histogram.getPercentile(percentile) - exact) / (double) Math.max(1, exact);
+                worst = Math.max(worst, error);
+            }
+            if (worst > 0.032) throw new IllegalStateException("histogram error " + worst);
+            System.out.println(String.format("%s: worst percentile error %.2f%%", run == 0 ? "uniform" : "log-normal", worst * 100));
+        }
+    }
+
+    private static void contended(int threads, int perThread) throws InterruptedException {
+        Histogram shared = new Histogram();
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) shared.record(i & 0xFFFF);
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) worker.join();
+        double nanos = (System.nanoTime() - start) / (double) (threads * perThread);
+        if (shared.getCount() != (long) threads * perThread) throw new IllegalStateException("lost records: " + shared.getCount());
+        System.out.println(String.format("%d threads recording into one histogram: %.1f ns per record, none lost", threads, nanos));
+    }
+}
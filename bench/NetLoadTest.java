@@ -0,0 +1,121 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import engine.GameWorld;
+import net.GameClient;
+import net.GameServer;
+import net.Protocol;
+
+/**
+ * Starts a GameServer on localhost and connects simulated players (default 300: a room is
+ * one Pac-Man and four ghosts, so 60 rooms). Every 50 ms each client predicts its move,
+ * sends it and reads the server's delta, changing direction every 0.5-2 seconds like a
+ * person. Reports server tick time against the 50 ms tick and bandwidth per client.
+ * All clients run on one thread in this process, so on a small machine they compete with
+ * the server for the CPU.
+ * Run with: java bench.NetLoadTest [clients] [seconds]
+ */
+public class NetLoadTest {
+
+    private static final long TICK_NANOS = 50_000_000L;
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        GameServer server = new GameServer(GameWorld.DEFAULT_MAZE, GameWorld.DEFAULT_TILE_SIZE, 0);
+        server.start();
+
+        ArrayList<Player> players = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            players.add(new Player(GameClient.connect("localhost", server.getPort(), Protocol.ROLE_ANY), i));
+        }
+
+        // warm up, then measure from a clean baseline
+        run(players, 5L * 1_000_000_000L);
+        long serverBytes = server.getBytesSent();
+        long serverTicks = server.getTicks();
+        long clientBytes = 0;
+        long clientSent = 0;
+        long states = 0;
+        for (Player player : players) {
+            clientBytes += player.client.getBytesReceived();
+            clientSent += player.client.getBytesSent();
+            states += player.client.getStates();
+        }
+        long start = System.nanoTime();
+        long corrections = corrections(players);
+        run(players, seconds * 1_000_000_000L);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        long received = -clientBytes;
+        long sent = -clientSent;
+        long frames = -states;
+        double ackMillis = 0;
+        int pacmen = 0;
+        int ghosts = 0;
+        for (Player player : players) {
+            received += player.client.getBytesReceived();
+            sent += player.client.getBytesSent();
+            frames += player.client.getStates();
+            ackMillis += player.client.getAverageAckMillis();
+            if (player.client.getRole() == Protocol.ROLE_PACMAN) pacmen++;
+            if (player.client.getRole() == Protocol.ROLE_GHOST) ghosts++;
+        }
+        long ticks = server.getTicks() - serverTicks;
+
+        System.out.println(String.format("%d cores; %d clients (%d Pac-Man, %d ghosts) in %d rooms, %d dropped, %.1f s",
+            Runtime.getRuntime().availableProcessors(), count, pacmen, ghosts, server.getRoomCount(), server.getDropped(), elapsed));
+        System.out.println(String.format("server: %d ticks (%.1f/sec), tick p50 %.3f ms, p99 %.3f ms, max %.3f ms (%.1f%% of the tick at p99)",
+            ticks, ticks / elapsed, server.getTickNanos(50) / 1e6, server.getTickNanos(99) / 1e6, server.getMaxTickNanos() / 1e6,
+            100.0 * server.getTickNanos(99) / TICK_NANOS));
+        System.out.println(String.format("down: %.0f bytes/sec per client (%.1f bytes per state), server total %.1f KB/sec",
+            received / elapsed / count, (double) received / Math.max(1, frames), (server.getBytesSent() - serverBytes) / elapsed / 1024));
+        System.out.println(String.format("up: %.0f bytes/sec per client; input acknowledged after %.1f ms on average; %.2f prediction corrections/sec per client",
+            sent / elapsed / count, ackMillis / count, (corrections(players) - corrections) / elapsed / count));
+
+        for (Player player : players) player.client.close();
+        server.stop();
+    }
+
+    private static void run(ArrayList<Player> players, long nanos) throws Exception {
+        long end = System.nanoTime() + nanos;
+        long next = System.nanoTime();
+        while (next < end) {
+            for (Player player : players) player.tick();
+            next += TICK_NANOS;
+            long sleep = next - System.nanoTime();
+            if (sleep > 0) Thread.sleep(sleep / 1_000_000, (int) (sleep % 1_000_000));
+        }
+    }
+
+    private static long corrections(ArrayList<Player> players) {
+        long total = 0;
+        for (Player player : players) total += player.client.getCorrections();
+        return total;
+    }
+
+    /** One simulated person: a client, its mirror world and a key-pressing habit. */
+    private static class Player {
+        private GameClient client;
+        private GameWorld world = new GameWorld(GameWorld.DEFAULT_MAZE, GameWorld.DEFAULT_TILE_SIZE, new Random());
+        private Random keys;
+        private char input = 'R';
+        private int nextPress;
+
+        Player(GameClient client, long seed) {
+            this.client = client;
+            this.keys = new Random(seed);
+        }
+
+        void tick() throws Exception {
+            if (--nextPress <= 0) {
+                input = Protocol.DIRECTIONS[keys.nextInt(4)];
+                nextPress = 10 + keys.nextInt(30);
+            }
+            client.update(world, input);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package bench;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import engine.DistanceTable;
+import engine.GameWorld;
+import util.CollisionGrid;
+
+/**
+ * One ghost decision ("which way towards this tile?") via DistanceTable lookup,
+ * on-the-fly BFS and A*, plus table build time and memory as mazes grow.
+ * Run with: java bench.PathfindingBenchmark
+ */
+public class PathfindingBenchmark {
+
+    private static final int[] ROW_STEP = {-1, 1, 0, 0};
+    private static final int[] COLUMN_STEP = {0, 0, -1, 1};
+
+    private static int sink;
+
+    public static void main(String[] args) throws Exception {
+        Bench bench = new Bench(500, 1000);
+
+        System.out.println(String.format("%-10s %7s %10s %12s %12s %12s %12s",
+            "maze", "nodes", "build ms", "table bytes", "lookup ns", "bfs ns", "a* ns"));
+
+        report(bench, "default", defaultGrid());
+        for (int side : new int[]{31, 45, 63, 75}) {
+            report(bench, side + "x" + side, pillarGrid(side));
+        }
+    }
+
+    private static void report(Bench bench, String name, CollisionGrid grid) throws Exception {
+        long start = System.nanoTime();
+        DistanceTable table = new DistanceTable(grid);
+        double buildMillis = (System.nanoTime() - start) / 1e6;
+
+        int n = table.getNodeCount();
+        Random random = new Random(5);
+        int[] pairs = new int[2048];
+        for (int i = 0; i < pairs.length; i++) pairs[i] = random.nextInt(n);
+
+        int[] cursor = {0};
+        Bench.Result lookup = bench.run("lookup", () -> {
+            int i = cursor[0]++ & (pairs.length - 2);
+            sink += table.nextDirection(pairs[i], pairs[i + 1]);
+        });
+        Searcher searcher = new Searcher(grid);
+        Bench.Result bfs = bench.run("bfs", () -> {
+            int i = cursor[0]++ & (pairs.length - 2);
+            sink += searcher.bfs(table, pairs[i], pairs[i + 1]);
+        });
+        Bench.Result astar = bench.run("astar", () -> {
+            int i = cursor[0]++ & (pairs.length - 2);
+            sink += searcher.astar(table, pairs[i], pairs[i + 1]);
+        });
+
+        System.out.println(String.format("%-10s %7d %10.1f %12d %12.1f %12.1f %12.1f",
+            name, n, buildMillis, table.getMemoryBytes(), lookup.getNanosPerOp(), bfs.getNanosPerOp(), astar.getNanosPerOp()));
+    }
+
+    private static CollisionGrid defaultGrid() {
+        String[] map = GameWorld.DEFAULT_MAP;
+        CollisionGrid grid = new CollisionGrid(map.length, map[0].length(), 32);
+        for (int r = 0; r < map.length; r++) {
+            for (int c = 0; c < map[r].length(); c++) {
+                if (map[r].charAt(c) == 'X') grid.setWall(r, c);
+            }
+        }
+        return grid;
+    }
+
+    private static CollisionGrid pillarGrid(int side) {
+        CollisionGrid grid = new CollisionGrid(side, side, 32);
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                boolean border = r == 0 || c == 0 || r == side - 1 || c == side - 1;
+                if (border || (r % 2 == 0 && c % 2 == 0)) grid.setWall(r, c);
+            }
+        }
+        return grid;
+    }
+
+    /** Reference searches over the tile grid that return the first direction index. */
+    private static class Searcher {
+        private CollisionGrid grid;
+        private int columns;
+        private int[] queue;
+        private int[] firstStep;
+        private int[] cost;
+
+        Searcher(CollisionGrid grid) {
+            this.grid = grid;
+            this.columns = grid.getColumnCount();
+            int tiles = grid.getRowCount() * columns;
+            this.queue = new int[tiles];
+            this.firstStep = new int[tiles];
+            this.cost = new int[tiles];
+        }
+
+        int bfs(DistanceTable table, int fromNode, int toNode) {
+            int from = table.rowOf(fromNode) * columns + table.columnOf(fromNode);
+            int to = table.rowOf(toNode) * columns + table.columnOf(toNode);
+            if (from == to) return -1;
+            Arrays.fill(firstStep, -2);
+            int head = 0;
+            int tail = 0;
+            firstStep[from] = -1;
+            queue[tail++] = from;
+            while (head < tail) {
+                int tile = queue[head++];
+                for (int d = 0; d < 4; d++) {
+                    int next = step(tile, d);
+                    if (next < 0 || firstStep[next] != -2) continue;
+                    firstStep[next] = tile == from ? d : firstStep[tile];
+                    if (next == to) return firstStep[next];
+                    queue[tail++] = next;
+                }
+            }
+            return -1;
+        }
+
+        int astar(DistanceTable table, int fromNode, int toNode) {
+            int from = table.rowOf(fromNode) * columns + table.columnOf(fromNode);
+            int to = table.rowOf(toNode) * columns + table.columnOf(toNode);
+            if (from == to) return -1;
+            Arrays.fill(firstStep, -2);
+            Arrays.fill(cost, Integer.MAX_VALUE);
+            PriorityQueue<long[]> open = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+            cost[from] = 0;
+            firstStep[from] = -1;
+            open.add(new long[]{heuristic(from, to), from});
+            while (!open.isEmpty()) {
+                int tile = (int) open.poll()[1];
+                if (tile == to) return firstStep[tile];
+                for (int d = 0; d < 4; d++) {
+                    int next = step(tile, d);
+                    if (next < 0 || cost[tile] + 1 >= cost[next]) continue;
+                    cost[next] = cost[tile] + 1;
+                    firstStep[next] = tile == from ? d : firstStep[tile];
+                    open.add(new long[]{cost[next] + heuristic(next, to), next});
+                }
+            }
+            return -1;
+        }
+
+        private int step(int tile, int direction) {
+            int r = tile / columns + ROW_STEP[direction];
+            int c = tile % columns + COLUMN_STEP[direction];
+            if (r < 0 || c < 0 || r >= grid.getRowCount() || c >= columns || grid.isWall(r, c)) return -1;
+            return r * columns + c;
+        }
+
+        private long heuristic(int a, int b) {
+            return Math.abs(a / columns - b / columns) + Math.abs(a % columns - b % columns);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package bench;
+
+import java.util.ArrayList;
+
+import engine.PelletBoard;
+import model.Food;
+
+/**
+ * Heap per pellet and reset cost: ArrayList of Food objects vs PelletBoard.
+ * Run with: java bench.PelletBenchmark [side]
+ */
+public class PelletBenchmark {
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int count = side * side;
+
+        long before = usedHeap();
+        ArrayList<Food> foods = new ArrayList<>(count);
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) foods.add(new Food(c * 32 + 14, r * 32 + 14, 4, 4));
+        }
+        long listBytes = usedHeap() - before;
+
+        before = usedHeap();
+        PelletBoard board = new PelletBoard(side, side);
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) board.place(r, c);
+        }
+        board.reset();
+        long boardBytes = usedHeap() - before;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            for (int c = 0; c < side; c++) board.eat(i % side, c);
+            board.reset();
+        }
+        long resetNanos = (System.nanoTime() - start) / 100;
+
+        System.out.println(String.format("%d pellets (%dx%d)", count, side, side));
+        System.out.println(String.format("ArrayList<Food>: %.1f bytes/pellet", listBytes / (double) count));
+        System.out.println(String.format("PelletBoard:     %.3f bytes/pellet", boardBytes / (double) count));
+        System.out.println(String.format("PelletBoard eat row + reset: %d us", resetNanos / 1000));
+        System.out.println(foods.size() + board.getRemaining() > 0 ? "" : "-");
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
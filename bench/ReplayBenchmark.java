@@ -0,0 +1,81 @@
+package bench;
+
+import java.io.File;
+import java.util.Random;
+
+import engine.GameWorld;
+import engine.InputLog;
+import engine.Replay;
+
+/**
+ * Records an hour of play (72,000 ticks, Pac-Man made immortal so the game does not end)
+ * with a human-like input stream, then reports the log size and how fast a headless
+ * replay re-runs and verifies it. Also checks that replaying the input from the wrong seed is
+ * caught at the first checkpoint, and replays a normal 3-life game through Replay.run.
+ * Run with: java bench.ReplayBenchmark
+ */
+public class ReplayBenchmark {
+
+    private static final char[] DIRECTIONS = {'U', 'D', 'L', 'R'};
+    private static final long HOUR_TICKS = 20L * 60 * 60;
+
+    public static void main(String[] args) throws Exception {
+        long seed = 42;
+        GameWorld recorded = new GameWorld(GameWorld.DEFAULT_MAZE, GameWorld.DEFAULT_TILE_SIZE, new Random());
+        InputLog log = InputLog.start(recorded, seed);
+        recorded.getPacman().setLives(Integer.MAX_VALUE);
+
+        // a key press every 0.5 to 2 seconds
+        Random player = new Random(7);
+        char input = 'R';
+        long nextPress = 0;
+        long start = System.nanoTime();
+        for (long tick = 0; tick < HOUR_TICKS; tick++) {
+            if (tick == nextPress) {
+                input = DIRECTIONS[player.nextInt(4)];
+                nextPress = tick + 10 + player.nextInt(30);
+            }
+            log.step(recorded, input);
+        }
+        log.finish(recorded);
+        double recordMs = (System.nanoTime() - start) / 1e6;
+
+        File file = File.createTempFile("bench-replay", ".pmr");
+        file.deleteOnExit();
+        log.save(file.getPath());
+        InputLog loaded = InputLog.load(file.getPath());
+        System.out.println(String.format("1 hour: %d ticks, %d input changes, %d checkpoints; file %d bytes (%.2f bytes/change); recorded in %.1f ms",
+            loaded.getTicks(), loaded.getEventCount(), loaded.getHashCount(), file.length(),
+            (double) loaded.getEventBytes() / loaded.getEventCount(), recordMs));
+
+        for (int round = 0; round < 5; round++) {
+            GameWorld fresh = new GameWorld(GameWorld.DEFAULT_MAZE, GameWorld.DEFAULT_TILE_SIZE, new Random());
+            InputLog.start(fresh, loaded.getSeed());
+            fresh.getPacman().setLives(Integer.MAX_VALUE);
+            Replay.Result result = Replay.run(loaded, fresh);
+            System.out.println(String.format("replay %d: %s in %.1f ms (%.0f ticks/ms), score %d (recorded %d)",
+                round, result.isMatched() ? "verified" : "MISMATCH at " + result.getMismatchTick(),
+                result.getNanos() / 1e6, result.getTicks() / (result.getNanos() / 1e6), result.getScore(), recorded.getScore()));
+        }
+
+        // the same input on a world started from a different seed must be caught
+        GameWorld wrong = new GameWorld(GameWorld.DEFAULT_MAZE, GameWorld.DEFAULT_TILE_SIZE, new Random());
+        InputLog.start(wrong, seed + 1);
+        wrong.getPacman().setLives(Integer.MAX_VALUE);
+        Replay.Result diverged = Replay.run(loaded, wrong);
+        System.out.println(String.format("wrong seed: %s", diverged.isMatched() ? "NOT DETECTED" : "detected at tick " + diverged.getMismatchTick()));
+
+        // an ordinary game through the public path: fresh world, default AI, 3 lives, up to 10 minutes
+        GameWorld game = new GameWorld(GameWorld.DEFAULT_MAZE, GameWorld.DEFAULT_TILE_SIZE, new Random());
+        InputLog normalLog = InputLog.start(game, 99);
+        Random keys = new Random(3);
+        while (!game.isGameOver() && game.getTick() < HOUR_TICKS / 6) {
+            normalLog.step(game, game.getTick() % 20 == 0 ? DIRECTIONS[keys.nextInt(4)] : game.getNextDirection());
+        }
+        normalLog.finish(game);
+        Replay.Result normal = Replay.run(normalLog, GameWorld.DEFAULT_MAZE);
+        System.out.println(String.format("3-life game: %d ticks (%s), %d bytes, %s in %.2f ms",
+            normal.getTicks(), game.isGameOver() ? "game over" : "still alive", normalLog.getEncodedSize(),
+            normal.isMatched() ? "verified" : "MISMATCH", normal.getNanos() / 1e6));
+    }
+}
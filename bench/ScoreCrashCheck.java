@@ -0,0 +1,118 @@
+package bench;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+
+import util.ScoreManager;
+import util.ScoreStore;
+
+/**
+ * Opens score files as a crash could leave them and checks that saving still works and
+ * the result reopens: scores.db cut off inside its 8-byte header (1 to 7 bytes) or
+ * inside its last record, and a leaderboard whose last line has no newline, either
+ * because an append was torn or because the line was written without one.
+ * Exits with status 1 on a failure.
+ * Run with: java bench.ScoreCrashCheck
+ */
+public class ScoreCrashCheck {
+
+    private static final byte[] STORE_HEADER = {0x50, 0x53, 0x43, 0x52, 0, 0, 0, 1};
+
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        File file = File.createTempFile("bench-crash", ".db");
+        file.deleteOnExit();
+        new File(file.getPath() + ".lock").deleteOnExit();
+
+        for (int length = 1; length < STORE_HEADER.length; length++) {
+            write(file, STORE_HEADER, length);
+            checkStore("store header cut to " + length + " bytes", file, 0);
+        }
+
+        file.delete();
+        ScoreStore store = new ScoreStore(file.getPath());
+        store.open();
+        store.addScore("Alice", 100);
+        store.close();
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(new byte[]{2, 0, 0}); // a SCORE record cut after 3 bytes
+        }
+        checkStore("store record cut short", file, 1);
+
+        File text = File.createTempFile("bench-crash", ".txt");
+        text.deleteOnExit();
+        new File(text.getPath() + ".lock").deleteOnExit();
+        writeText(text, "Alice,100\nCar");
+        checkLeaderboard("leaderboard line torn", text, "Bob,200;Alice,100");
+        writeText(text, "Alice,100\nCarol,300");
+        checkLeaderboard("leaderboard line unterminated", text, "Carol,300;Bob,200;Alice,100");
+
+        System.out.println(failures == 0 ? "OK" : failures + " FAILED");
+        if (failures > 0) System.exit(1);
+    }
+
+    /** Saves one more score on the damaged file, then reopens it and expects every score. */
+    private static void checkStore(String label, File file, int before) throws Exception {
+        try {
+            ScoreStore store = new ScoreStore(file.getPath());
+            store.open();
+            store.addScore("Bob", 200);
+            store.close();
+            ScoreStore reopened = new ScoreStore(file.getPath());
+            reopened.open();
+            boolean ok = reopened.getCount() == before + 1 && reopened.getBest("Bob") == 200 && hasHeader(file);
+            reopened.close();
+            report(label, ok, reopened.getCount() + " games, " + file.length() + " bytes");
+        } catch (Exception e) {
+            report(label, false, e.toString());
+        }
+    }
+
+    /** Saves one more score on the file, then reloads it in a new manager and expects the given top entries. */
+    private static void checkLeaderboard(String label, File file, String expected) {
+        try {
+            ScoreManager manager = new ScoreManager(file.getPath());
+            manager.loadScores();
+            manager.saveScore("Bob", 200);
+            ScoreManager reloaded = new ScoreManager(file.getPath());
+            reloaded.loadScores();
+            StringBuilder entries = new StringBuilder();
+            for (ScoreManager.ScoreEntry entry : reloaded.getHighScores()) {
+                if (entries.length() > 0) entries.append(';');
+                entries.append(entry.getPlayerName()).append(',').append(entry.getScore());
+            }
+            report(label, entries.toString().equals(expected), entries.toString());
+        } catch (Exception e) {
+            report(label, false, e.toString());
+        }
+    }
+
+    private static boolean hasHeader(File file) throws Exception {
+        byte[] start = new byte[STORE_HEADER.length];
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            in.readFully(start);
+        }
+        return Arrays.equals(start, STORE_HEADER);
+    }
+
+    private static void write(File file, byte[] bytes, int length) throws Exception {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(bytes, 0, length);
+        }
+    }
+
+    private static void writeText(File file, String text) throws Exception {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(text.getBytes());
+        }
+    }
+
+    private static void report(String label, boolean ok, String detail) {
+        if (!ok) failures++;
+        System.out.println(String.format("%-32s %s (%s)", label, ok ? "ok" : "FAILED", detail));
+    }
+}
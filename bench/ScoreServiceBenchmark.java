@@ -0,0 +1,91 @@
+package bench;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import util.ScoreManager;
+import util.ScoreService;
+
+/**
+ * What a score save costs the calling (EDT) thread: a synchronous ScoreManager.saveScore
+ * against submitting to ScoreService, plus how a burst of saves and history records is
+ * batched into a few fsyncs.
+ * Run with: java bench.ScoreServiceBenchmark
+ */
+public class ScoreServiceBenchmark {
+
+    private static final int SAVES = 500;
+    private static final int BURST = ScoreService.QUEUE_CAPACITY / 2;
+
+    public static void main(String[] args) throws Exception {
+        File text = File.createTempFile("bench-service", ".txt");
+        File history = File.createTempFile("bench-service", ".db");
+        history.delete();
+        Random random = new Random(11);
+
+        ScoreManager direct = new ScoreManager(text.getPath());
+        direct.loadScores();
+        long[] micros = new long[SAVES];
+        for (int i = 0; i < SAVES; i++) {
+            long start = System.nanoTime();
+            direct.saveScore("Sync" + (i % 20), random.nextInt(1_000_000));
+            micros[i] = (System.nanoTime() - start) / 1_000;
+        }
+        print("sync saveScore (caller)", micros);
+
+        ScoreService service = new ScoreService(new ScoreManager(text.getPath()), history.getPath(), null);
+        long loadStart = System.nanoTime();
+        CompletableFuture<Void> loaded = service.load();
+        long submitNanos = System.nanoTime() - loadStart;
+        loaded.join();
+        System.out.println(String.format("async load: returned in %d us, finished in %.2f ms",
+            submitNanos / 1_000, (System.nanoTime() - loadStart) / 1e6));
+
+        // one game over at a time: the caller only pays for the enqueue
+        for (int i = 0; i < SAVES; i++) {
+            long start = System.nanoTime();
+            CompletableFuture<Void> saved = service.save("Async" + (i % 20), random.nextInt(1_000_000));
+            micros[i] = (System.nanoTime() - start) / 1_000;
+            saved.join();
+        }
+        print("async save (caller)", micros);
+
+        long batchesBefore = service.getBatches();
+        long start = System.nanoTime();
+        ArrayList<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (int i = 0; i < BURST; i++) {
+            pending.add(service.save("Burst" + (i % 20), random.nextInt(1_000_000)));
+            pending.add(service.record("Burst" + (i % 20), random.nextInt(1_000_000)));
+        }
+        long submitted = System.nanoTime() - start;
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+        System.out.println(String.format("burst of %d requests: submitted in %.2f ms, durable after %.2f ms in %d batches",
+            pending.size(), submitted / 1e6, (System.nanoTime() - start) / 1e6, service.getBatches() - batchesBefore));
+
+        // more than the queue holds: the overflow fails fast instead of blocking the caller
+        int rejected = 0;
+        for (int i = 0; i < ScoreService.QUEUE_CAPACITY * 2; i++) {
+            if (service.record("Flood", i).isCompletedExceptionally()) rejected++;
+        }
+        System.out.println(String.format("flood of %d records: %d rejected", ScoreService.QUEUE_CAPACITY * 2, rejected));
+
+        for (int i = 0; i < 50; i++) service.record("Exit", i);
+        start = System.nanoTime();
+        boolean flushed = service.close(5_000);
+        System.out.println(String.format("close with 50 queued: flushed=%b in %.2f ms", flushed, (System.nanoTime() - start) / 1e6));
+
+        text.delete();
+        history.delete();
+        new File(text.getPath() + ".lock").delete();
+    }
+
+    private static void print(String name, long[] micros) {
+        long[] sorted = micros.clone();
+        Arrays.sort(sorted);
+        System.out.println(String.format("%-24s p50 %5d us, p99 %5d us, max %5d us",
+            name, sorted[sorted.length / 2], sorted[sorted.length * 99 / 100], sorted[sorted.length - 1]));
+    }
+}
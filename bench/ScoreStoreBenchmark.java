@@ -0,0 +1,69 @@
+package bench;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.util.Random;
+
+import util.ScoreStore;
+
+/**
+ * The full-history score store at 1M and 10M games: streaming import from the text
+ * format, reopening (replaying the binary log), and the game-over queries.
+ * Run with: java -Xmx2g bench.ScoreStoreBenchmark
+ */
+public class ScoreStoreBenchmark {
+
+    private static final int[] SIZES = {1_000_000, 10_000_000};
+    private static final int PLAYERS = 100_000;
+
+    public static void main(String[] args) throws Exception {
+        Bench bench = new Bench(500, 1000);
+        for (int size : SIZES) {
+            report(bench, size);
+        }
+    }
+
+    private static void report(Bench bench, int size) throws Exception {
+        File text = File.createTempFile("bench-scores", ".txt");
+        File binary = File.createTempFile("bench-scores", ".db");
+        text.deleteOnExit();
+        binary.deleteOnExit();
+        binary.delete();
+
+        Random random = new Random(size);
+        BufferedWriter writer = new BufferedWriter(new FileWriter(text), 1 << 16);
+        for (int i = 0; i < size; i++) {
+            writer.write("Player" + random.nextInt(PLAYERS) + "," + random.nextInt(1_000_000));
+            writer.newLine();
+        }
+        writer.close();
+
+        long start = System.nanoTime();
+        ScoreStore store = new ScoreStore(binary.getPath());
+        store.open();
+        int imported = store.importText(text.getPath());
+        store.close();
+        double importMs = (System.nanoTime() - start) / 1e6;
+
+        start = System.nanoTime();
+        ScoreStore reopened = new ScoreStore(binary.getPath());
+        reopened.open();
+        double openMs = (System.nanoTime() - start) / 1e6;
+
+        System.out.println(String.format("%,d games: import %.0f ms (%,d B text -> %,d B binary), open %.0f ms, index %,d B",
+            imported, importMs, text.length(), binary.length(), openMs, reopened.getIndexBytes()));
+
+        Random queries = new Random(1);
+        int[] sink = {0};
+        System.out.println(Bench.HEADER);
+        System.out.println(bench.run("rank", () -> sink[0] += reopened.rank(queries.nextInt(1_000_000))));
+        System.out.println(bench.run("percentile", () -> sink[0] += (int) reopened.percentile(queries.nextInt(1_000_000))));
+        System.out.println(bench.run("best", () -> sink[0] += reopened.getBest("Player" + queries.nextInt(PLAYERS))));
+        System.out.println(bench.run("formatted", () -> sink[0] += reopened.getFormattedScores().length()));
+        reopened.close();
+        text.delete();
+        binary.delete();
+        if (sink[0] == 42) System.out.println();
+    }
+}
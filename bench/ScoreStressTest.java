@@ -0,0 +1,97 @@
+package bench;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Random;
+
+import util.ScoreManager;
+
+/**
+ * Many games saving to one score file at once: child processes plus threads in this JVM,
+ * each with its own ScoreManager. Every score is unique and saved in shuffled order, so
+ * the final top 10 is known in advance; any lost update shows up as a missing entry.
+ * Exits with status 1 on a mismatch.
+ * Run with: java bench.ScoreStressTest [processes] [threads] [saves each]
+ */
+public class ScoreStressTest {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--child")) {
+            runWorker(args[1], Integer.parseInt(args[2]), Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+            return;
+        }
+        int processes = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int saves = args.length > 2 ? Integer.parseInt(args[2]) : 300;
+        int workers = processes + threads;
+
+        File file = File.createTempFile("bench-stress", ".txt");
+        file.delete();
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+
+        long start = System.nanoTime();
+        ArrayList<Process> children = new ArrayList<>();
+        for (int p = 0; p < processes; p++) {
+            children.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), ScoreStressTest.class.getName(),
+                "--child", file.getPath(), String.valueOf(p), String.valueOf(saves), String.valueOf(workers)).inheritIO().start());
+        }
+        ArrayList<Thread> local = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int id = processes + t;
+            Thread thread = new Thread(() -> {
+                try {
+                    runWorker(file.getPath(), id, saves, workers);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            thread.start();
+            local.add(thread);
+        }
+        for (Thread thread : local) thread.join();
+        for (Process child : children) {
+            if (child.waitFor() != 0) throw new IllegalStateException("Worker process failed");
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        ScoreManager result = new ScoreManager(file.getPath());
+        result.loadScores();
+        ArrayList<ScoreManager.ScoreEntry> top = result.getHighScores();
+        int lost = 0;
+        for (int i = 0; i < 10; i++) {
+            int expected = (int) (((long) saves * workers - 1 - i));
+            if (i >= top.size() || top.get(i).getScore() != expected) lost++;
+        }
+
+        int total = saves * workers;
+        System.out.println(String.format("%d processes + %d threads, %d saves in %.2f s: %.0f saves/sec",
+            processes, threads, total, seconds, total / seconds));
+        System.out.println(String.format("top 10 mismatches: %d (log lines after run: %d)", lost, result.getLogLines()));
+        new File(file.getPath() + ".lock").delete();
+        file.delete();
+        if (lost > 0) {
+            System.out.println("FAIL: lost updates");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    /** Saves the scores perm[i] * workers + id for a seeded shuffle perm of 0..saves-1. */
+    private static void runWorker(String filename, int id, int saves, int workers) throws Exception {
+        int[] order = new int[saves];
+        for (int i = 0; i < saves; i++) order[i] = i;
+        Random random = new Random(id);
+        for (int i = saves - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+
+        ScoreManager scores = new ScoreManager(filename);
+        scores.loadScores();
+        for (int i = 0; i < saves; i++) {
+            scores.saveScore("Worker" + id, order[i] * workers + id);
+        }
+    }
+}
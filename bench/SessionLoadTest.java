@@ -0,0 +1,97 @@
+package bench;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import engine.GameWorld;
+import engine.SessionManager;
+
+/**
+ * Hosts more and more headless bot games on a SessionManager (one shard per core, 20
+ * ticks/sec) while 1% of the sessions per second are replaced, and reports pass time
+ * (the stepping itself) and tick lateness (when the last session's tick finished after
+ * it was due) at each step. The first row has no sessions: its lateness is the OS waking
+ * the threads late, a floor no session count goes below.
+ * Sessions per core is the largest count whose p99 pass time fits in PASS_TARGET, and
+ * the count the measured busy time projects to at 100%.
+ * Run with: java bench.SessionLoadTest [max sessions]
+ */
+public class SessionLoadTest {
+
+    private static final char[] DIRECTIONS = {'U', 'D', 'L', 'R'};
+    private static final long PASS_TARGET = 25_000_000L; // half a tick, leaving room for spikes
+    private static final long MEASURE_MILLIS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        int max = args.length > 0 ? Integer.parseInt(args[0]) : 64_000;
+        int cores = Runtime.getRuntime().availableProcessors();
+        SessionManager manager = new SessionManager();
+        manager.start();
+        ArrayDeque<Long> live = new ArrayDeque<>();
+        Random seeds = new Random(1);
+
+        System.out.println(String.format("%d cores, %d shards, %d ms ticks", cores, manager.getShardCount(), manager.getTickNanos() / 1_000_000));
+        System.out.println(String.format("%10s %7s %11s %11s %13s %13s %10s %9s %8s %8s",
+            "sessions", "busy", "pass p50 ms", "pass p99 ms", "late p50 ms", "late p99 ms", "ticks/sec", "overruns", "dropped", "heap MB"));
+
+        int best = 0;
+        double projected = 0;
+        for (int target = 0; target <= max; target = target == 0 ? 1_000 : target * 2) {
+            while (live.size() < target) live.add(addBot(manager, seeds.nextLong()));
+            if (usedHeapMb() > Runtime.getRuntime().maxMemory() / 1024 / 1024 * 0.8) {
+                System.out.println("stopping: heap nearly full");
+                break;
+            }
+            Thread.sleep(3_000); // let the new sessions get their first ticks and the JIT settle
+            manager.resetStats();
+
+            // replace 1% of the sessions per second while measuring
+            long start = System.nanoTime();
+            int churn = target / 100 / 10;
+            while (System.nanoTime() - start < MEASURE_MILLIS * 1_000_000) {
+                for (int i = 0; i < churn; i++) {
+                    manager.remove(live.poll());
+                    live.add(addBot(manager, seeds.nextLong()));
+                }
+                Thread.sleep(100);
+            }
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            double busy = manager.getBusyFraction();
+            long passP99 = manager.getPassNanos(99);
+            System.out.println(String.format("%10d %6.1f%% %11.2f %11.2f %13.2f %13.2f %10.0f %9d %8d %8d",
+                manager.getSessionCount(), busy * 100, manager.getPassNanos(50) / 1e6, passP99 / 1e6,
+                manager.getLatenessNanos(50) / 1e6, manager.getLatenessNanos(99) / 1e6,
+                manager.getTicks() * (double) target / manager.getShardCount() / seconds,
+                manager.getOverruns(), manager.getDroppedTicks(), usedHeapMb()));
+            if (target > 0 && passP99 < PASS_TARGET) {
+                best = target;
+                projected = target / busy / cores;
+            }
+            if (passP99 > manager.getTickNanos()) break;
+        }
+        manager.stop();
+        System.out.println(String.format("sessions per core with p99 pass time under %d ms: %d measured, about %.0f projected at 100%% busy; %d failures",
+            PASS_TARGET / 1_000_000, best / cores, projected, manager.getFailures()));
+    }
+
+    /** A bot that presses a new direction every 0.5 to 2 seconds. */
+    private static long addBot(SessionManager manager, long seed) {
+        Random keys = new Random(seed);
+        GameWorld world = new GameWorld(GameWorld.DEFAULT_MAZE, GameWorld.DEFAULT_TILE_SIZE, new Random(seed));
+        int[] nextPress = {0};
+        char[] input = {'R'};
+        return manager.add(world, w -> {
+            if (--nextPress[0] <= 0) {
+                input[0] = DIRECTIONS[keys.nextInt(4)];
+                nextPress[0] = 10 + keys.nextInt(30);
+            }
+            return input[0];
+        }).getId();
+    }
+
+    private static long usedHeapMb() {
+        Runtime runtime = Runtime.getRuntime();
+        return (runtime.totalMemory() - runtime.freeMemory()) / 1024 / 1024;
+    }
+}
@@ -0,0 +1,42 @@
+package bench;
+
+import java.util.Random;
+
+import engine.GameWorld;
+
+/**
+ * Measures headless GameWorld.step() throughput on one thread.
+ * Run with: java -Djava.awt.headless=true bench.SimulationBenchmark
+ */
+public class SimulationBenchmark {
+
+    private static final char[] DIRECTIONS = {'U', 'D', 'L', 'R'};
+
+    public static void main(String[] args) {
+        long ticks = args.length > 0 ? Long.parseLong(args[0]) : 5_000_000L;
+
+        run(ticks / 10); // warm-up
+        long start = System.nanoTime();
+        long games = run(ticks);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(String.format("%d ticks in %.2fs = %.0f ticks/sec (%d games)",
+            ticks, seconds, ticks / seconds, games));
+    }
+
+    private static long run(long ticks) {
+        Random inputs = new Random(7);
+        GameWorld world = new GameWorld(GameWorld.DEFAULT_MAP, GameWorld.DEFAULT_TILE_SIZE, new Random(1));
+        char input = 'R';
+        long games = 1;
+        for (long i = 0; i < ticks; i++) {
+            if ((i & 15) == 0) input = DIRECTIONS[inputs.nextInt(4)];
+            world.step(input);
+            if (world.isGameOver()) {
+                world.newGame();
+                games++;
+            }
+        }
+        return games;
+    }
+}
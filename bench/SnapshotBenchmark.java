@@ -0,0 +1,76 @@
+package bench;
+
+import java.util.Random;
+
+import engine.GameRandom;
+import engine.GameWorld;
+import engine.Maze;
+
+/**
+ * GameWorld snapshot/restore: correctness (restoring and re-playing the same input gives
+ * the same state hash; GameRandom matches java.util.Random), then snapshot, restore and
+ * "clone" (restore + snapshot, what a search does per node) cost on the default maze and
+ * a 200x200 maze with 200 ghosts.
+ * Run with: java bench.SnapshotBenchmark
+ */
+public class SnapshotBenchmark {
+
+    private static final char[] DIRECTIONS = {'U', 'D', 'L', 'R'};
+
+    public static void main(String[] args) throws Exception {
+        checkRandom();
+        Bench bench = new Bench(500, 1000);
+        System.out.println(Bench.HEADER);
+        report(bench, "default", GameWorld.DEFAULT_MAZE);
+        report(bench, "200x200", Maze.fromTileMap(FlowFieldBenchmark.stressMap(200, 200, 5)));
+    }
+
+    private static void checkRandom() {
+        Random plain = new Random(1234);
+        GameRandom game = new GameRandom(1234);
+        for (int i = 0; i < 100_000; i++) {
+            if (plain.nextInt(4) != game.nextInt(4) || plain.nextLong() != game.nextLong()) {
+                throw new IllegalStateException("GameRandom diverged from java.util.Random at " + i);
+            }
+        }
+    }
+
+    private static void report(Bench bench, String name, Maze maze) throws Exception {
+        GameWorld world = new GameWorld(maze, GameWorld.DEFAULT_TILE_SIZE, new Random(1));
+        world.getPacman().setLives(Integer.MAX_VALUE);
+        Random inputs = new Random(2);
+        for (int i = 0; i < 200; i++) world.step(DIRECTIONS[inputs.nextInt(4)]);
+
+        long[] start = new long[world.snapshotLength()];
+        world.snapshot(start);
+        long startHash = world.stateHash();
+
+        char[] moves = new char[500];
+        for (int i = 0; i < moves.length; i++) moves[i] = DIRECTIONS[inputs.nextInt(4)];
+        for (char move : moves) world.step(move);
+        long firstRun = world.stateHash();
+
+        world.restore(start);
+        if (world.stateHash() != startHash) throw new IllegalStateException(name + ": restore did not return to the snapshot");
+        for (char move : moves) world.step(move);
+        if (world.stateHash() != firstRun) throw new IllegalStateException(name + ": re-run after restore diverged");
+
+        long[] scratch = new long[world.snapshotLength()];
+        Bench.Result snapshot = bench.run(name + " snapshot", () -> world.snapshot(scratch));
+        Bench.Result restore = bench.run(name + " restore", () -> world.restore(start));
+        Bench.Result clone = bench.run(name + " restore+snapshot", () -> {
+            world.restore(start);
+            world.snapshot(scratch);
+        });
+        Bench.Result lookahead = bench.run(name + " restore+8 steps", () -> {
+            world.restore(start);
+            for (int i = 0; i < 8; i++) world.step(moves[i]);
+        });
+        System.out.println(snapshot);
+        System.out.println(restore);
+        System.out.println(clone);
+        System.out.println(lookahead);
+        System.out.println(String.format("%s: %d words (%d bytes) per snapshot, %.1f M clones/sec, round trip verified",
+            name, start.length, start.length * 8, 1e3 / clone.getNanosPerOp()));
+    }
+}
@@ -0,0 +1,102 @@
+package bench;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import javax.swing.ImageIcon;
+
+import render.SpriteAtlas;
+
+/**
+ * Blit throughput with thousands of sprites on a 1280x960 frame: the old way (the PNGs
+ * as ImageIcon images, scaled from 16 to 32 pixels on every drawImage) against SpriteAtlas
+ * copies already at 32 pixels in the screen's format, drawn unscaled. Both frames are
+ * also compared pixel for pixel, since the pre-scaled copies must look the same.
+ * Run with: java bench.SpriteBlitBenchmark (add -Djava.awt.headless=true without a display)
+ */
+public class SpriteBlitBenchmark {
+
+    private static final int SIZE = 32;
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 960;
+    private static final int[] COUNTS = {1_000, 5_000, 20_000};
+
+    public static void main(String[] args) throws Exception {
+        Image[] icons = new Image[SpriteAtlas.NAMES.length];
+        Image[] scaled = new Image[SpriteAtlas.NAMES.length];
+        SpriteAtlas atlas = SpriteAtlas.load();
+        for (int i = 0; i < icons.length; i++) {
+            icons[i] = new ImageIcon(SpriteBlitBenchmark.class.getResource("/" + SpriteAtlas.NAMES[i] + ".png")).getImage();
+            scaled[i] = atlas.get(i, SIZE);
+        }
+
+        BufferedImage frame = createFrame();
+        Graphics2D g = frame.createGraphics();
+        System.out.println((GraphicsEnvironment.isHeadless() ? "headless, " : "screen format, ") + WIDTH + "x" + HEIGHT + " frame, " + SIZE + " px sprites");
+        compare(icons, scaled);
+
+        Bench bench = new Bench(1000, 2000);
+        System.out.println(String.format("%8s %-30s %12s %14s %10s", "sprites", "method", "us/frame", "sprites/ms", "B/frame"));
+        for (int count : COUNTS) {
+            int[] sprite = new int[count];
+            int[] x = new int[count];
+            int[] y = new int[count];
+            Random random = new Random(count);
+            for (int i = 0; i < count; i++) {
+                sprite[i] = random.nextInt(icons.length);
+                x[i] = random.nextInt(WIDTH - SIZE);
+                y[i] = random.nextInt(HEIGHT - SIZE);
+            }
+            Bench.Result before = bench.run("ImageIcon, scaled per blit", () -> {
+                for (int i = 0; i < count; i++) g.drawImage(icons[sprite[i]], x[i], y[i], SIZE, SIZE, null);
+            });
+            Bench.Result after = bench.run("atlas, pre-scaled, unscaled", () -> {
+                for (int i = 0; i < count; i++) g.drawImage(scaled[sprite[i]], x[i], y[i], null);
+            });
+            report(count, before);
+            report(count, after);
+            System.out.println(String.format("%8d %-30s %11.1fx", count, "speed-up", before.getNanosPerOp() / after.getNanosPerOp()));
+        }
+        g.dispose();
+    }
+
+    private static void report(int count, Bench.Result result) {
+        System.out.println(String.format("%8d %-30s %12.1f %14.0f %10.0f",
+            count, result.getName(), result.getNanosPerOp() / 1e3, count / (result.getNanosPerOp() / 1e6), result.getBytesPerOp()));
+    }
+
+    /** Draws every sprite both ways on black and counts differing pixels. */
+    private static void compare(Image[] icons, Image[] scaled) {
+        BufferedImage old = createFrame();
+        BufferedImage atlased = createFrame();
+        Graphics2D oldGraphics = old.createGraphics();
+        Graphics2D atlasGraphics = atlased.createGraphics();
+        oldGraphics.setColor(Color.BLACK);
+        oldGraphics.fillRect(0, 0, WIDTH, HEIGHT);
+        atlasGraphics.setColor(Color.BLACK);
+        atlasGraphics.fillRect(0, 0, WIDTH, HEIGHT);
+        for (int i = 0; i < icons.length; i++) {
+            oldGraphics.drawImage(icons[i], i * SIZE, 0, SIZE, SIZE, null);
+            atlasGraphics.drawImage(scaled[i], i * SIZE, 0, null);
+        }
+        oldGraphics.dispose();
+        atlasGraphics.dispose();
+        int different = 0;
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < icons.length * SIZE; x++) {
+                if (old.getRGB(x, y) != atlased.getRGB(x, y)) different++;
+            }
+        }
+        if (different != 0) throw new IllegalStateException(different + " pixels differ from the scaled originals");
+        System.out.println("pre-scaled sprites match the scaled originals pixel for pixel");
+    }
+
+    private static BufferedImage createFrame() {
+        if (GraphicsEnvironment.isHeadless()) return new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+            .createCompatibleImage(WIDTH, HEIGHT);
+    }
+}
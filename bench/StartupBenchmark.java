@@ -0,0 +1,143 @@
+package bench;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+
+import engine.GameWorld;
+import render.SpriteAtlas;
+import render.WorldRenderer;
+import util.PerfMetrics;
+import util.StartupTrace;
+
+/**
+ * Cold-start time-to-first-frame and time-to-interactive (see StartupTrace), each run in a
+ * fresh headless JVM. "pipelined" is App's startup: sprites and the font load in parallel
+ * with the maze, the first frame may draw placeholders and JMX is published after it.
+ * "serial" decodes the sprites, loads the maze and publishes JMX first, as before. The
+ * panel paints offscreen every 16 ms, like a window would. PacMan is in the default
+ * package, so it is created by name.
+ * Run with: java bench.StartupBenchmark [runs] [TTI budget ms]; a median TTI over the
+ * budget exits with status 1.
+ */
+public class StartupBenchmark {
+
+    private static final String[] PHASES = {
+        StartupTrace.MAZE_READY, StartupTrace.FIRST_FRAME, StartupTrace.SPRITES_READY,
+        StartupTrace.SCORES_LOADED, StartupTrace.INTERACTIVE
+    };
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--child")) {
+            child(args[1].equals("serial"));
+            return;
+        }
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        double budget = args.length > 1 ? Double.parseDouble(args[1]) : 0;
+
+        HashMap<String, ArrayList<double[]>> results = new HashMap<>();
+        for (int run = 0; run < runs; run++) {
+            for (String mode : new String[]{"serial", "pipelined"}) {
+                results.computeIfAbsent(mode, m -> new ArrayList<>()).add(launch(mode));
+            }
+        }
+
+        System.out.println(String.format("%d cold starts per mode, ms after main() (median / max); JVM start-up before main() not included", runs));
+        StringBuilder header = new StringBuilder(String.format("%-10s", "mode"));
+        for (String phase : PHASES) header.append(String.format(" %17s", phase));
+        header.append(String.format(" %12s", "jvm"));
+        System.out.println(header);
+        double pipelinedTti = 0;
+        for (String mode : new String[]{"serial", "pipelined"}) {
+            ArrayList<double[]> samples = results.get(mode);
+            StringBuilder row = new StringBuilder(String.format("%-10s", mode));
+            for (int p = 0; p <= PHASES.length; p++) {
+                double[] values = new double[samples.size()];
+                for (int i = 0; i < values.length; i++) values[i] = samples.get(i)[p];
+                Arrays.sort(values);
+                double median = values[values.length / 2];
+                row.append(String.format(p < PHASES.length ? " %8.1f / %6.1f" : " %5.0f / %4.0f", median, values[values.length - 1]));
+                if (mode.equals("pipelined") && PHASES.length > p && PHASES[p].equals(StartupTrace.INTERACTIVE)) pipelinedTti = median;
+            }
+            System.out.println(row);
+        }
+        if (budget > 0 && pipelinedTti > budget) {
+            System.out.println(String.format("REGRESSION: median time-to-interactive %.1f ms is over the %.0f ms budget", pipelinedTti, budget));
+            System.exit(1);
+        }
+    }
+
+    /** One cold start in a new JVM, in a scratch directory so score files are not touched. */
+    private static double[] launch(String mode) throws Exception {
+        File scratch = Files.createTempDirectory("startup").toFile();
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, "-Djava.awt.headless=true", "-cp",
+            new File(System.getProperty("java.class.path")).getAbsolutePath(), StartupBenchmark.class.getName(), "--child", mode)
+            .directory(scratch).redirectErrorStream(true).start();
+        double[] phases = null;
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = output.readLine()) != null) {
+                if (!line.startsWith("TRACE ")) continue;
+                String[] fields = line.substring(6).split(" ");
+                phases = new double[fields.length];
+                for (int i = 0; i < fields.length; i++) phases[i] = Double.parseDouble(fields[i]);
+            }
+        }
+        process.waitFor();
+        for (File file : scratch.listFiles()) file.delete();
+        scratch.delete();
+        if (phases == null) throw new IllegalStateException(mode + " start-up did not reach interactive");
+        return phases;
+    }
+
+    /** Mirrors App.main up to the first frames, without the window. */
+    private static void child(boolean serial) throws Exception {
+        StartupTrace.mark(StartupTrace.LAUNCH);
+        GameWorld world;
+        if (serial) {
+            SpriteAtlas.getShared();
+            StartupTrace.mark(StartupTrace.SPRITES_READY);
+            world = new GameWorld();
+            StartupTrace.mark(StartupTrace.MAZE_READY);
+            new PerfMetrics().register("serial"); // the panel used to do this before its first frame
+        } else {
+            SpriteAtlas.getSharedAsync().thenRun(() -> StartupTrace.mark(StartupTrace.SPRITES_READY));
+            CompletableFuture.runAsync(WorldRenderer::preloadFont);
+            CompletableFuture<GameWorld> loading = CompletableFuture.supplyAsync(GameWorld::new);
+            world = loading.join();
+            StartupTrace.mark(StartupTrace.MAZE_READY);
+        }
+
+        JComponent[] panel = new JComponent[1];
+        SwingUtilities.invokeAndWait(() -> {
+            try {
+                panel[0] = (JComponent) Class.forName("PacMan").getConstructor(GameWorld.class).newInstance(world);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+            panel[0].setSize(panel[0].getPreferredSize());
+        });
+        BufferedImage frame = new BufferedImage(panel[0].getWidth(), panel[0].getHeight(), BufferedImage.TYPE_INT_RGB);
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!(StartupTrace.isMarked(StartupTrace.INTERACTIVE) && StartupTrace.isMarked(StartupTrace.SCORES_LOADED))
+                && System.nanoTime() < deadline) {
+            SwingUtilities.invokeAndWait(() -> panel[0].paint(frame.getGraphics()));
+            Thread.sleep(16);
+        }
+
+        StringBuilder line = new StringBuilder("TRACE");
+        for (String phase : PHASES) line.append(' ').append(StartupTrace.getMillis(phase));
+        line.append(' ').append(StartupTrace.getJvmMillis());
+        System.out.println(line);
+        System.exit(0);
+    }
+}
@@ -0,0 +1,165 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import model.EntityStore;
+import model.EntityView;
+import model.Ghost;
+import model.Player;
+import util.CollisionGrid;
+
+/**
+ * One swarm tick for 10k and 100k ghosts on an open board with pillars: every ghost saves
+ * its position, moves, turns around if it hits a wall and is tested against Pac-Man.
+ * Three layouts do the same work:
+ * - "objects": the game's Ghost and Player, one object per entity with its own fields
+ * - "views": EntityView over an EntityStore, through Movable and Collidable
+ * - "bulk": EntityStore's array loops (savePositions, moveAll, countOverlaps)
+ * A fixed run of ticks is checked to leave all three in the same state first.
+ * Run with: java bench.SwarmBenchmark
+ */
+public class SwarmBenchmark {
+
+    private static final int TILE_SIZE = 32;
+    private static final int SPEED = TILE_SIZE / 4;
+    private static final int[] COUNTS = {10_000, 100_000};
+    private static final char[] DIRECTIONS = {'U', 'D', 'L', 'R'};
+
+    private static int sink;
+
+    /** The same ghosts in three layouts, plus Pac-Man standing in the middle of the board. */
+    private static class Swarm {
+        final CollisionGrid grid;
+        final Player pacman;
+        final ArrayList<Ghost> objects = new ArrayList<>();
+        final EntityStore viewStore;
+        final EntityView viewPacman;
+        final ArrayList<EntityView> views = new ArrayList<>();
+        final EntityStore store;
+
+        Swarm(int count) {
+            int size = (int) Math.ceil(Math.sqrt(count)) | 1;
+            grid = new CollisionGrid(size, size, TILE_SIZE);
+            for (int r = 0; r < size; r++) {
+                for (int c = 0; c < size; c++) {
+                    boolean border = r == 0 || c == 0 || r == size - 1 || c == size - 1;
+                    if (border || (r % 2 == 0 && c % 2 == 0)) grid.setWall(r, c);
+                }
+            }
+            int center = (size / 2 | 1) * TILE_SIZE;
+            viewStore = new EntityStore(1 + count);
+            store = new EntityStore(1 + count);
+            pacman = new Player(null, center, center, TILE_SIZE, TILE_SIZE, TILE_SIZE);
+            viewPacman = new EntityView(viewStore, viewStore.add(center, center, TILE_SIZE, TILE_SIZE), SPEED);
+            store.add(center, center, TILE_SIZE, TILE_SIZE);
+
+            Random random = new Random(count);
+            while (objects.size() < count) {
+                int r = random.nextInt(size), c = random.nextInt(size);
+                if (grid.isWall(r, c)) continue;
+                char direction = DIRECTIONS[random.nextInt(4)];
+                Ghost ghost = new Ghost(null, c * TILE_SIZE, r * TILE_SIZE, TILE_SIZE, TILE_SIZE, "red", TILE_SIZE);
+                ghost.updateDirection(direction);
+                objects.add(ghost);
+                EntityView view = new EntityView(viewStore, viewStore.add(c * TILE_SIZE, r * TILE_SIZE, TILE_SIZE, TILE_SIZE), SPEED);
+                view.updateDirection(direction);
+                views.add(view);
+                store.setDirection(store.add(c * TILE_SIZE, r * TILE_SIZE, TILE_SIZE, TILE_SIZE), direction, SPEED);
+            }
+        }
+
+        int objectTick() {
+            pacman.savePosition();
+            int touching = 0;
+            for (int i = 0; i < objects.size(); i++) {
+                Ghost ghost = objects.get(i);
+                ghost.savePosition();
+                ghost.move();
+                if (grid.collidesWithWall(ghost)) {
+                    ghost.undoMove();
+                    ghost.updateDirection(opposite(ghost.getDirection()));
+                }
+                if (ghost.collidesWith(pacman)) touching++;
+            }
+            return touching;
+        }
+
+        int viewTick() {
+            viewPacman.savePosition();
+            int touching = 0;
+            for (int i = 0; i < views.size(); i++) {
+                EntityView ghost = views.get(i);
+                ghost.savePosition();
+                ghost.move();
+                if (grid.overlapsWall(ghost.getX(), ghost.getY(), ghost.getWidth(), ghost.getHeight())) {
+                    ghost.undoMove();
+                    ghost.updateDirection(opposite(ghost.getDirection()));
+                }
+                if (ghost.collidesWith(viewPacman)) touching++;
+            }
+            return touching;
+        }
+
+        int bulkTick() {
+            int count = store.size();
+            store.savePositions();
+            store.moveAll(1, count);
+            for (int i = 1; i < count; i++) {
+                if (grid.overlapsWall(store.getX(i), store.getY(i), store.getWidth(i), store.getHeight(i))) {
+                    store.undoMove(i);
+                    store.reverse(i);
+                }
+            }
+            return store.countOverlaps(0, 1, count);
+        }
+
+        /** Throws unless every layout has each ghost in the same place, heading the same way. */
+        void check() {
+            for (int i = 0; i < objects.size(); i++) {
+                Ghost object = objects.get(i);
+                EntityView view = views.get(i);
+                int slot = i + 1;
+                if (object.getX() != view.getX() || object.getY() != view.getY() || object.getDirection() != view.getDirection()
+                        || object.getX() != store.getX(slot) || object.getY() != store.getY(slot)
+                        || object.getDirection() != store.getDirection(slot)) {
+                    throw new IllegalStateException("ghost " + i + " differs between layouts");
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Bench bench = new Bench(1000, 3000);
+        System.out.println(String.format("%8s %-10s %12s %12s %10s %10s", "ghosts", "layout", "us/tick", "ns/ghost", "B/tick", "touching"));
+        for (int count : COUNTS) {
+            Swarm swarm = new Swarm(count);
+            for (int tick = 0; tick < 200; tick++) {
+                int objects = swarm.objectTick(), views = swarm.viewTick(), bulk = swarm.bulkTick();
+                if (objects != views || objects != bulk) throw new IllegalStateException("touch counts differ at tick " + tick);
+            }
+            swarm.check();
+
+            Bench.Result objects = bench.run("objects", () -> sink += swarm.objectTick());
+            Bench.Result views = bench.run("views", () -> sink += swarm.viewTick());
+            Bench.Result bulk = bench.run("bulk", () -> sink += swarm.bulkTick());
+            int touching = swarm.bulkTick();
+            for (Bench.Result result : new Bench.Result[]{objects, views, bulk}) {
+                System.out.println(String.format("%8d %-10s %12.1f %12.2f %10.0f %10d", count, result.getName(),
+                    result.getNanosPerOp() / 1e3, result.getNanosPerOp() / count, result.getBytesPerOp(), touching));
+            }
+            System.out.println(String.format("%8d %-10s %11.2fx %11.2fx", count, "bulk vs", objects.getNanosPerOp() / bulk.getNanosPerOp(),
+                views.getNanosPerOp() / bulk.getNanosPerOp()));
+        }
+        if (sink == 42) System.out.println();
+    }
+
+    private static char opposite(char direction) {
+        switch (direction) {
+            case 'U': return 'D';
+            case 'D': return 'U';
+            case 'L': return 'R';
+            default: return 'L';
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package bench;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import engine.GameWorld;
+import engine.Maze;
+import model.Player;
+import render.WorldRenderer;
+
+/**
+ * Frame cost of the camera + chunk renderer on the default maze and a 2000x2000 maze,
+ * at two window sizes. "play" steps the game each frame; "fly" moves Pac-Man 16 pixels
+ * per frame across the map so new chunks keep scrolling into view.
+ * Run with: java -Djava.awt.headless=true bench.ViewportBenchmark
+ */
+public class ViewportBenchmark {
+
+    private static final char[] DIRECTIONS = {'U', 'D', 'L', 'R'};
+    private static final int[][] VIEWPORTS = {{640, 480}, {1280, 960}};
+
+    public static void main(String[] args) throws Exception {
+        Bench bench = new Bench(1000, 2000);
+        Maze large = Maze.fromTileMap(FlowFieldBenchmark.stressMap(2000, 4, 3));
+
+        System.out.println(String.format("%-10s %-10s %-5s %12s %10s %10s %10s",
+            "maze", "viewport", "mode", "ns/frame", "B/frame", "cached", "builds"));
+        for (int[] viewport : VIEWPORTS) {
+            report(bench, "default", GameWorld.DEFAULT_MAZE, viewport, false);
+            report(bench, "2000x2000", large, viewport, false);
+            report(bench, "2000x2000", large, viewport, true);
+        }
+    }
+
+    private static void report(Bench bench, String name, Maze maze, int[] viewport, boolean fly) throws Exception {
+        GameWorld world = new GameWorld(maze, GameWorld.DEFAULT_TILE_SIZE, new Random(1));
+        world.getPacman().setLives(Integer.MAX_VALUE);
+        WorldRenderer renderer = new WorldRenderer(world);
+        renderer.setViewport(viewport[0], viewport[1]);
+        BufferedImage frame = new BufferedImage(viewport[0], viewport[1], BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = frame.createGraphics();
+
+        Player pacman = world.getPacman();
+        int startX = pacman.getX();
+        int span = Math.max(1, world.getBoardWidth() - pacman.getWidth());
+        Random inputs = new Random(7);
+        int[] frameCount = {0};
+
+        Bench.Result result = bench.run(name, () -> {
+            if (fly) {
+                pacman.setX((startX + 16 * frameCount[0]++) % span);
+            } else if ((world.getTick() & 15) == 0) {
+                world.step(DIRECTIONS[inputs.nextInt(4)]);
+            } else {
+                world.step(world.getNextDirection());
+            }
+            renderer.draw(g, 1.0);
+        });
+        g.dispose();
+
+        System.out.println(String.format("%-10s %-10s %-5s %12.0f %10.0f %10d %10d",
+            name, viewport[0] + "x" + viewport[1], fly ? "fly" : "play", result.getNanosPerOp(),
+            result.getBytesPerOp(), renderer.getChunks().getCachedCount(), renderer.getChunks().getBuilds()));
+    }
+}
@@ -0,0 +1,118 @@
+package engine;
+
+import java.util.LongSummaryStatistics;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+/**
+ * Runs many independent headless games in parallel and summarises the results.
+ * Every game gets its own GameWorld and its own seeded Random, so nothing mutable is shared.
+ */
+public class BatchSimulator {
+
+    private static final char[] DIRECTIONS = {'U', 'D', 'L', 'R'};
+
+    private Maze maze;
+    private int maxTicks;
+
+    public static class GameResult {
+        private long seed;
+        private int score;
+        private long survivalTicks;
+        private int pelletsEaten;
+
+        public GameResult(long seed, int score, long survivalTicks, int pelletsEaten) {
+            this.seed = seed;
+            this.score = score;
+            this.survivalTicks = survivalTicks;
+            this.pelletsEaten = pelletsEaten;
+        }
+
+        public long getSeed() { return seed; }
+        public int getScore() { return score; }
+        public long getSurvivalTicks() { return survivalTicks; }
+        public int getPelletsEaten() { return pelletsEaten; }
+    }
+
+    public static class Summary {
+        private LongSummaryStatistics score = new LongSummaryStatistics();
+        private LongSummaryStatistics survivalTicks = new LongSummaryStatistics();
+        private LongSummaryStatistics pelletsEaten = new LongSummaryStatistics();
+
+        public void add(GameResult result) {
+            score.accept(result.getScore());
+            survivalTicks.accept(result.getSurvivalTicks());
+            pelletsEaten.accept(result.getPelletsEaten());
+        }
+
+        public void combine(Summary other) {
+            score.combine(other.score);
+            survivalTicks.combine(other.survivalTicks);
+            pelletsEaten.combine(other.pelletsEaten);
+        }
+
+        public long getGames() { return score.getCount(); }
+        public long getTotalTicks() { return survivalTicks.getSum(); }
+        public LongSummaryStatistics getScore() { return score; }
+        public LongSummaryStatistics getSurvivalTicks() { return survivalTicks; }
+        public LongSummaryStatistics getPelletsEaten() { return pelletsEaten; }
+
+        @Override
+        public String toString() {
+            return String.format("games=%d score(avg=%.1f max=%d) survival(avg=%.1f max=%d) pellets(avg=%.1f max=%d)",
+                getGames(), score.getAverage(), score.getMax(),
+                survivalTicks.getAverage(), survivalTicks.getMax(),
+                pelletsEaten.getAverage(), pelletsEaten.getMax());
+        }
+    }
+
+    public BatchSimulator(int maxTicks) {
+        this(GameWorld.DEFAULT_MAZE, maxTicks);
+    }
+
+    public BatchSimulator(String[] tileMap, int maxTicks) {
+        this(Maze.fromTileMap(tileMap), maxTicks);
+    }
+
+    public BatchSimulator(Maze maze, int maxTicks) {
+        this.maze = maze;
+        this.maxTicks = maxTicks;
+    }
+
+    /**
+     * Plays games for seeds baseSeed .. baseSeed + games - 1 on a pool of the given size.
+     */
+    public Summary run(int games, long baseSeed, int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> LongStream.range(baseSeed, baseSeed + games)
+                .parallel()
+                .mapToObj(this::playGame)
+                .collect(Summary::new, Summary::add, Summary::combine)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Plays one game with a random-walk input policy until game over or maxTicks.
+     */
+    public GameResult playGame(long seed) {
+        GameWorld world = new GameWorld(maze, GameWorld.DEFAULT_TILE_SIZE, new Random(seed));
+        Random inputs = new Random(~seed);
+        char input = DIRECTIONS[inputs.nextInt(4)];
+
+        while (!world.isGameOver() && world.getTick() < maxTicks) {
+            if ((world.getTick() & 15) == 0) input = DIRECTIONS[inputs.nextInt(4)];
+            world.step(input);
+        }
+        return new GameResult(seed, world.getScore(), world.getTick(), world.getPelletsEaten());
+    }
+}
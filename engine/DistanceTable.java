@@ -0,0 +1,177 @@
+package engine;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import util.CollisionGrid;
+
+/**
+ * All-pairs shortest paths over the walkable tiles of a maze, built once per map with
+ * one BFS per target tile run in parallel. Afterwards the distance between any two
+ * tiles, and the first step of a shortest path, are single array lookups.
+ *
+ * Memory is 3 bytes per (from, to) pair, so it is only meant for maps with a few
+ * thousand walkable tiles; see MAX_NODES.
+ */
+public class DistanceTable {
+
+    public static final char[] DIRECTIONS = {'U', 'D', 'L', 'R'};
+    public static final int MAX_NODES = 4096;
+
+    private static final int[] ROW_STEP = {-1, 1, 0, 0};
+    private static final int[] COLUMN_STEP = {0, 0, -1, 1};
+
+    private int rowCount;
+    private int columnCount;
+    private int nodeCount;
+    private int[] nodeOfTile;
+    private int[] tileOfNode;
+    private int[] nearestNode;
+    private int[] neighbors;
+    private short[] distance;
+    private byte[] nextHop;
+
+    public DistanceTable(CollisionGrid grid) {
+        this.rowCount = grid.getRowCount();
+        this.columnCount = grid.getColumnCount();
+        indexNodes(grid);
+        if (nodeCount > MAX_NODES) {
+            throw new IllegalArgumentException("Maze has " + nodeCount + " walkable tiles, table limit is " + MAX_NODES);
+        }
+        buildNearestNodes();
+
+        distance = new short[nodeCount * nodeCount];
+        nextHop = new byte[nodeCount * nodeCount];
+        IntStream.range(0, nodeCount).parallel().forEach(this::searchFrom);
+    }
+
+    /** Number of walkable tiles in a grid, to check against MAX_NODES before building. */
+    public static int countWalkable(CollisionGrid grid) {
+        int count = 0;
+        for (int r = 0; r < grid.getRowCount(); r++) {
+            for (int c = 0; c < grid.getColumnCount(); c++) {
+                if (!grid.isWall(r, c)) count++;
+            }
+        }
+        return count;
+    }
+
+    public int getNodeCount() { return nodeCount; }
+
+    public long getMemoryBytes() {
+        return 2L * distance.length + nextHop.length
+            + 4L * (nodeOfTile.length + tileOfNode.length + nearestNode.length + neighbors.length);
+    }
+
+    /** Node index of a tile, or -1 for walls and tiles outside the map. */
+    public int node(int row, int column) {
+        if (row < 0 || column < 0 || row >= rowCount || column >= columnCount) return -1;
+        return nodeOfTile[row * columnCount + column];
+    }
+
+    /** Closest walkable node to any tile; coordinates outside the map are clamped. */
+    public int nearestNode(int row, int column) {
+        row = Math.max(0, Math.min(rowCount - 1, row));
+        column = Math.max(0, Math.min(columnCount - 1, column));
+        return nearestNode[row * columnCount + column];
+    }
+
+    public int rowOf(int node) { return tileOfNode[node] / columnCount; }
+    public int columnOf(int node) { return tileOfNode[node] % columnCount; }
+
+    /** Neighbouring node in direction index 0-3 (U, D, L, R), or -1. */
+    public int neighbor(int node, int direction) {
+        return neighbors[node * 4 + direction];
+    }
+
+    /** Path length in tiles, or -1 if unreachable. */
+    public int distance(int from, int to) {
+        return distance[to * nodeCount + from];
+    }
+
+    /** Direction index (U, D, L, R) of the first step from one node towards another, or -1. */
+    public int nextDirection(int from, int to) {
+        return nextHop[to * nodeCount + from];
+    }
+
+    private void indexNodes(CollisionGrid grid) {
+        nodeOfTile = new int[rowCount * columnCount];
+        Arrays.fill(nodeOfTile, -1);
+        tileOfNode = new int[countWalkable(grid)];
+        for (int r = 0; r < rowCount; r++) {
+            for (int c = 0; c < columnCount; c++) {
+                if (!grid.isWall(r, c)) {
+                    nodeOfTile[r * columnCount + c] = nodeCount;
+                    tileOfNode[nodeCount++] = r * columnCount + c;
+                }
+            }
+        }
+
+        neighbors = new int[nodeCount * 4];
+        for (int n = 0; n < nodeCount; n++) {
+            int row = rowOf(n);
+            int column = columnOf(n);
+            for (int d = 0; d < 4; d++) {
+                neighbors[n * 4 + d] = node(row + ROW_STEP[d], column + COLUMN_STEP[d]);
+            }
+        }
+    }
+
+    /** Multi-source BFS over every tile so wall and off-map targets map to a walkable one. */
+    private void buildNearestNodes() {
+        nearestNode = new int[rowCount * columnCount];
+        Arrays.fill(nearestNode, -1);
+        int[] queue = new int[rowCount * columnCount];
+        int head = 0;
+        int tail = 0;
+        for (int n = 0; n < nodeCount; n++) {
+            nearestNode[tileOfNode[n]] = n;
+            queue[tail++] = tileOfNode[n];
+        }
+        while (head < tail) {
+            int tile = queue[head++];
+            int row = tile / columnCount;
+            int column = tile % columnCount;
+            for (int d = 0; d < 4; d++) {
+                int r = row + ROW_STEP[d];
+                int c = column + COLUMN_STEP[d];
+                if (r < 0 || c < 0 || r >= rowCount || c >= columnCount) continue;
+                int next = r * columnCount + c;
+                if (nearestNode[next] < 0) {
+                    nearestNode[next] = nearestNode[tile];
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * BFS outwards from one target fills that target's row: the distance from every node,
+     * and the direction each node should take to get one step closer.
+     */
+    private void searchFrom(int target) {
+        int base = target * nodeCount;
+        Arrays.fill(distance, base, base + nodeCount, (short) -1);
+        Arrays.fill(nextHop, base, base + nodeCount, (byte) -1);
+
+        int[] queue = new int[nodeCount];
+        int head = 0;
+        int tail = 0;
+        distance[base + target] = 0;
+        queue[tail++] = target;
+
+        while (head < tail) {
+            int node = queue[head++];
+            short next = (short) (distance[base + node] + 1);
+            for (int d = 0; d < 4; d++) {
+                int neighbor = neighbors[node * 4 + d];
+                if (neighbor >= 0 && distance[base + neighbor] < 0) {
+                    distance[base + neighbor] = next;
+                    // the neighbour reaches the target by stepping back towards this node
+                    nextHop[base + neighbor] = (byte) (d ^ 1);
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+}
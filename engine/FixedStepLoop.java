@@ -0,0 +1,150 @@
+package engine;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fixed-timestep game loop on its own thread.
+ * Simulation ticks at a constant rate using an accumulator, catching up on missed ticks
+ * up to a bound, while rendering runs at display rate with an interpolation factor.
+ */
+public class FixedStepLoop implements Runnable {
+
+    public interface Listener {
+        /** Advances the simulation by exactly one step. Called on the loop thread. */
+        void tick();
+
+        /** Requests a frame; alpha in [0, 1) is how far we are between the last two ticks. */
+        void render(double alpha);
+    }
+
+    /**
+     * Timing statistics. Lateness is how far behind its ideal schedule a tick ran;
+     * drift is wall-clock time minus simulated time, so it grows only when ticks are dropped.
+     */
+    public static class Stats {
+        private long ticks;
+        private long droppedTicks;
+        private long frames;
+        private long latenessSum;
+        private long latenessMax;
+        private double frameIntervalMean;
+        private double frameIntervalM2;
+        private long driftNanos;
+
+        private synchronized void recordTick(long lateness) {
+            ticks++;
+            latenessSum += lateness;
+            if (lateness > latenessMax) latenessMax = lateness;
+        }
+
+        private synchronized void recordDropped(long count) {
+            droppedTicks += count;
+        }
+
+        private synchronized void recordFrame(long interval, long drift) {
+            frames++;
+            double delta = interval - frameIntervalMean;
+            frameIntervalMean += delta / frames;
+            frameIntervalM2 += delta * (interval - frameIntervalMean);
+            driftNanos = drift;
+        }
+
+        public synchronized long getTicks() { return ticks; }
+        public synchronized long getDroppedTicks() { return droppedTicks; }
+        public synchronized long getFrames() { return frames; }
+        public synchronized double getMeanLatenessMillis() { return ticks == 0 ? 0 : latenessSum / (double) ticks / 1e6; }
+        public synchronized double getMaxLatenessMillis() { return latenessMax / 1e6; }
+        public synchronized double getFrameJitterMillis() { return frames < 2 ? 0 : Math.sqrt(frameIntervalM2 / (frames - 1)) / 1e6; }
+        public synchronized double getDriftMillis() { return driftNanos / 1e6; }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("ticks=%d dropped=%d frames=%d lateness(mean=%.2fms max=%.2fms) frameJitter=%.2fms drift=%.2fms",
+                ticks, droppedTicks, frames, getMeanLatenessMillis(), getMaxLatenessMillis(), getFrameJitterMillis(), getDriftMillis());
+        }
+    }
+
+    private final long stepNanos;
+    private final long frameNanos;
+    private final int maxCatchUpTicks;
+    private final Listener listener;
+    private final Stats stats = new Stats();
+
+    // the thread of the current run, or null; a loop thread that is no longer it exits
+    private volatile Thread thread;
+
+    public FixedStepLoop(long stepNanos, long frameNanos, int maxCatchUpTicks, Listener listener) {
+        this.stepNanos = stepNanos;
+        this.frameNanos = frameNanos;
+        this.maxCatchUpTicks = maxCatchUpTicks;
+        this.listener = listener;
+    }
+
+    public Stats getStats() { return stats; }
+    public boolean isRunning() { return thread != null; }
+
+    /**
+     * Starts a new loop thread, even if the one stop() ended has not exited yet: that
+     * thread makes no tick() or render() call after the one it is in, then exits.
+     */
+    public synchronized void start() {
+        if (thread != null) return;
+        thread = new Thread(this, "game-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** May be called from any thread, including the loop thread inside tick(). */
+    public synchronized void stop() {
+        Thread current = thread;
+        thread = null;
+        if (current != null) LockSupport.unpark(current);
+    }
+
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+        long previous = start;
+        long accumulator = 0;
+        long simulatedTicks = 0;
+        long skippedTicks = 0;
+        long nextFrame = start;
+        Thread self = Thread.currentThread();
+
+        while (self == thread) {
+            long now = System.nanoTime();
+            accumulator += now - previous;
+
+            int caughtUp = 0;
+            while (accumulator >= stepNanos && caughtUp < maxCatchUpTicks && self == thread) {
+                listener.tick();
+                accumulator -= stepNanos;
+                caughtUp++;
+                simulatedTicks++;
+                long scheduled = start + (simulatedTicks + skippedTicks) * stepNanos;
+                stats.recordTick(Math.max(0, System.nanoTime() - scheduled));
+            }
+            if (self != thread) break;
+            if (accumulator >= stepNanos) {
+                // too far behind: drop the backlog instead of spiralling
+                long dropped = accumulator / stepNanos;
+                skippedTicks += dropped;
+                accumulator -= dropped * stepNanos;
+                stats.recordDropped(dropped);
+            }
+
+            listener.render(accumulator / (double) stepNanos);
+            long drift = (now - start) - simulatedTicks * stepNanos;
+            stats.recordFrame(now - previous, drift);
+            previous = now;
+
+            nextFrame += frameNanos;
+            long sleep = nextFrame - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+            } else {
+                nextFrame = System.nanoTime();
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package engine;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import util.CollisionGrid;
+
+/**
+ * Direction-per-tile field pointing every walkable tile one step closer to a target
+ * (Pac-Man). One BFS serves any number of ghosts, each reading its tile in O(1).
+ *
+ * The field is double-buffered: a new target is searched into the back buffer and
+ * swapped in when complete. In async mode the search runs on a worker thread while
+ * ghosts keep reading the previous field, so they may steer one tick behind.
+ */
+public class FlowField {
+
+    private static final int[] ROW_STEP = {-1, 1, 0, 0};
+    private static final int[] COLUMN_STEP = {0, 0, -1, 1};
+
+    private CollisionGrid grid;
+    private int rowCount;
+    private int columnCount;
+    private int[] queue;
+
+    private volatile byte[] front;
+    private byte[] back;
+    private volatile int frontTarget = -1;
+    private int requestedTarget = -1;
+    private volatile boolean computing;
+    private ExecutorService worker;
+    private volatile long searches;
+
+    public FlowField(CollisionGrid grid, boolean async) {
+        this.grid = grid;
+        this.rowCount = grid.getRowCount();
+        this.columnCount = grid.getColumnCount();
+        this.queue = new int[rowCount * columnCount];
+        this.front = new byte[rowCount * columnCount];
+        this.back = new byte[rowCount * columnCount];
+        Arrays.fill(front, (byte) -1);
+        if (async) {
+            worker = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "flow-field");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public boolean isAsync() { return worker != null; }
+    public long getSearches() { return searches; }
+    public int getTargetRow() { return frontTarget < 0 ? -1 : frontTarget / columnCount; }
+    public int getTargetColumn() { return frontTarget < 0 ? -1 : frontTarget % columnCount; }
+
+    /**
+     * Points the field at a new target tile. Does nothing if the target has not changed
+     * (or, in async mode, while the previous search is still running).
+     */
+    public void update(int row, int column) {
+        if (row < 0 || column < 0 || row >= rowCount || column >= columnCount) return;
+        int target = row * columnCount + column;
+        if (target == requestedTarget || computing) return;
+        requestedTarget = target;
+
+        if (worker == null) {
+            search(target);
+        } else {
+            computing = true;
+            worker.execute(() -> {
+                search(target);
+                computing = false;
+            });
+        }
+    }
+
+    /** Direction index (U, D, L, R) that moves one step closer to the target, or -1. */
+    public int direction(int row, int column) {
+        if (row < 0 || column < 0 || row >= rowCount || column >= columnCount) return -1;
+        return front[row * columnCount + column];
+    }
+
+    public void shutdown() {
+        if (worker != null) worker.shutdownNow();
+    }
+
+    private void search(int target) {
+        byte[] field = back;
+        Arrays.fill(field, (byte) -1);
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = target;
+        // the target itself keeps -1: a ghost standing on it has arrived
+
+        while (head < tail) {
+            int tile = queue[head++];
+            int row = tile / columnCount;
+            int column = tile % columnCount;
+            for (int d = 0; d < 4; d++) {
+                int r = row + ROW_STEP[d];
+                int c = column + COLUMN_STEP[d];
+                if (r < 0 || c < 0 || r >= rowCount || c >= columnCount) continue;
+                int next = r * columnCount + c;
+                if (next == target || field[next] >= 0 || grid.isWall(r, c)) continue;
+                // stepping back the way we came leads towards the target
+                field[next] = (byte) (d ^ 1);
+                queue[tail++] = next;
+            }
+        }
+
+        back = front;
+        front = field;
+        frontTarget = target;
+        searches++;
+    }
+}
@@ -0,0 +1,40 @@
+package engine;
+
+import model.Ghost;
+import model.Player;
+
+/**
+ * Every ghost chases Pac-Man by reading a shared FlowField.
+ * Meant for stress modes with hundreds of ghosts, where per-ghost pathfinding does not scale.
+ */
+public class FlowFieldGhostAI implements GhostAI {
+
+    private FlowField field;
+
+    public FlowFieldGhostAI(FlowField field) {
+        this.field = field;
+    }
+
+    public FlowField getField() { return field; }
+
+    /** Re-targets the field only when Pac-Man has entered a new tile. */
+    @Override
+    public void beforeTick(GameWorld world) {
+        int tileSize = world.getTileSize();
+        Player pacman = world.getPacman();
+        field.update(Math.floorDiv(pacman.getY() + tileSize / 2, tileSize), Math.floorDiv(pacman.getX() + tileSize / 2, tileSize));
+    }
+
+    /** An async field swaps in results whenever the worker finishes, so only sync fields replay. */
+    @Override
+    public boolean isDeterministic() {
+        return !field.isAsync();
+    }
+
+    @Override
+    public char chooseDirection(GameWorld world, Ghost ghost) {
+        int tileSize = world.getTileSize();
+        int direction = field.direction(Math.floorDiv(ghost.getY(), tileSize), Math.floorDiv(ghost.getX(), tileSize));
+        return direction < 0 ? ghost.getDirection() : DistanceTable.DIRECTIONS[direction];
+    }
+}
@@ -0,0 +1,40 @@
+package engine;
+
+import java.util.Random;
+
+/**
+ * java.util.Random's 48-bit LCG with its state readable and writable, so a GameWorld
+ * snapshot can include it. For the same seed it returns exactly what java.util.Random
+ * returns (recorded InputLogs replay unchanged). Not thread-safe, unlike Random.
+ * Gaussian state is not part of getState(); the game never uses nextGaussian().
+ */
+public class GameRandom extends Random {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    // no initializer: Random's constructor calls setSeed() before field initializers run
+    private long state;
+
+    public GameRandom(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+
+    public long getState() { return state; }
+    public void setState(long state) { this.state = state & MASK; }
+}
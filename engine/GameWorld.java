@@ -0,0 +1,443 @@
+package engine;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Random;
+import java.util.WeakHashMap;
+
+import interfaces.Movable;
+import model.*;
+import util.CollisionGrid;
+
+/**
+ * Headless Pac-Man simulation.
+ * Owns the maze, entities, score and lives, and advances one tick per step().
+ * Has no Swing dependency, so it can run without a display and as fast as the CPU allows.
+ */
+public class GameWorld {
+
+    // X = wall, O = skip, P = pac man, ' ' = food, b/o/p/r = ghosts
+    public static final String[] DEFAULT_MAP = {
+        "XXXXXXXXXXXXXXXXXXX",
+        "X        X        X",
+        "X XX XXX X XXX XX X",
+        "X                 X",
+        "X XX X XXXXX X XX X",
+        "X    X       X    X",
+        "XXXXXX X   X XXXXXX",
+        "OOOX X X   X X XOOO",
+        "XXXX X XXrXX X XXXX",
+        "O       bpo       O",
+        "XXXX X XXXXX X XXXX",
+        "OOOX X       X XOOO",
+        "XXXX X XXXXX X XXXX",
+        "X        X        X",
+        "X XX XXX X XXX XX X",
+        "X  X     P     X  X",
+        "XX X XXXXXXX X XX X",
+        "X    X       X    X",
+        "X XXXX XXXXX XXXX X",
+        "X                 X",
+        "XXXXXXXXXXXXXXXXXXX"
+    };
+
+    public static final Maze DEFAULT_MAZE = Maze.fromTileMap(DEFAULT_MAP);
+    public static final int DEFAULT_TILE_SIZE = 32;
+    public static final int STARTING_LIVES = 3;
+
+    private static final Map<Maze, DistanceTable> DISTANCE_TABLES = new WeakHashMap<>();
+
+    private Maze maze;
+    private int rowCount;
+    private int columnCount;
+    private int tileSize;
+    private int boardWidth;
+    private int boardHeight;
+
+    private CollisionGrid wallGrid;
+    private DistanceTable distanceTable;
+    private GhostAI ghostAI = new PersonalityGhostAI();
+    private PelletBoard pellets;
+    private Food pellet = new Food(14, 14, 4, 4);
+    private ArrayList<Ghost> ghosts;
+    // per ghost: the direction a human player is holding, or 0 while the GhostAI drives it
+    private char[] ghostInputs;
+    private Player pacman;
+
+    private char[] directions = {'U', 'D', 'L', 'R'};
+    private GameRandom random;
+    private int score = 0;
+    private int pelletsEaten = 0;
+    private long tick = 0;
+    private long entityChecks = 0;
+    private boolean gameOver = false;
+    private char nextDirection = 'R';
+    private WorldListener listener;
+
+    public GameWorld() {
+        this(DEFAULT_MAZE, DEFAULT_TILE_SIZE, new Random());
+    }
+
+    public GameWorld(String[] tileMap, int tileSize, Random random) {
+        this(Maze.fromTileMap(tileMap), tileSize, random);
+    }
+
+    public GameWorld(Maze maze, int tileSize, Random random) {
+        this.maze = maze;
+        this.rowCount = maze.getRowCount();
+        this.columnCount = maze.getColumnCount();
+        this.tileSize = tileSize;
+        this.boardWidth = columnCount * tileSize;
+        this.boardHeight = rowCount * tileSize;
+        // a GameRandom's state can be snapshotted; any other Random just seeds one
+        this.random = random instanceof GameRandom ? (GameRandom) random : new GameRandom(random.nextLong());
+
+        loadMap();
+        for (Ghost ghost : ghosts) {
+            ghost.updateDirection(directions[this.random.nextInt(4)]);
+        }
+    }
+
+    public int getRowCount() { return rowCount; }
+    public int getColumnCount() { return columnCount; }
+    public int getTileSize() { return tileSize; }
+    public int getBoardWidth() { return boardWidth; }
+    public int getBoardHeight() { return boardHeight; }
+    public Maze getMaze() { return maze; }
+    public PelletBoard getPellets() { return pellets; }
+    /** Shared pellet shape: its x/y is the offset inside a tile. */
+    public Food getPellet() { return pellet; }
+    public ArrayList<Ghost> getGhosts() { return ghosts; }
+    public Player getPacman() { return pacman; }
+    public int getScore() { return score; }
+    public int getLives() { return pacman.getLives(); }
+    public int getPelletsEaten() { return pelletsEaten; }
+    public long getTick() { return tick; }
+    public boolean isGameOver() { return gameOver; }
+    public char getNextDirection() { return nextDirection; }
+
+    public CollisionGrid getWallGrid() { return wallGrid; }
+    /** Wall and ghost-versus-Pac-Man collision checks made so far. */
+    public long getCollisionChecks() { return wallGrid.getChecks() + entityChecks; }
+    /** Null when the maze has more walkable tiles than DistanceTable.MAX_NODES. */
+    public DistanceTable getDistanceTable() { return distanceTable; }
+    public GhostAI getGhostAI() { return ghostAI; }
+
+    public void setListener(WorldListener listener) { this.listener = listener; }
+    public void setGhostAI(GhostAI ghostAI) { this.ghostAI = ghostAI; }
+
+    /** Hands a ghost to a human: from now on it moves by the same rule as Pac-Man. */
+    public void setGhostInput(int index, char direction) { ghostInputs[index] = direction; }
+    /** Gives a ghost back to the GhostAI. */
+    public void releaseGhost(int index) { ghostInputs[index] = 0; }
+    public boolean isHumanGhost(int index) { return ghostInputs[index] != 0; }
+
+    /**
+     * Builds the wall grid, pellets, ghosts and Pac-Man once. Walls are only grid cells,
+     * not objects. Images are left null; a renderer assigns them after the world is created.
+     */
+    private void loadMap() {
+        wallGrid = new CollisionGrid(rowCount, columnCount, tileSize);
+        ghosts = new ArrayList<>();
+        pellets = new PelletBoard(rowCount, columnCount);
+
+        for (int r = 0; r < rowCount; r++) {
+            for (int c = 0; c < columnCount; c++) {
+                int tile = maze.tile(r, c);
+                if (tile == Maze.WALL) {
+                    wallGrid.setWall(r, c);
+                } else if (tile == Maze.PELLET) {
+                    pellets.place(r, c);
+                }
+            }
+        }
+        for (int i = 0; i < maze.getGhostCount(); i++) {
+            int x = maze.getGhostColumn(i) * tileSize;
+            int y = maze.getGhostRow(i) * tileSize;
+            ghosts.add(new Ghost(null, x, y, tileSize, tileSize, maze.getGhostColor(i), tileSize));
+        }
+        ghostInputs = new char[ghosts.size()];
+        pacman = new Player(null, maze.getPacmanColumn() * tileSize, maze.getPacmanRow() * tileSize, tileSize, tileSize, tileSize);
+
+        distanceTable = sharedDistanceTable(maze, wallGrid);
+        resetPellets();
+    }
+
+    /** Tables depend only on the maze, so worlds playing the same Maze share one. */
+    private static DistanceTable sharedDistanceTable(Maze maze, CollisionGrid grid) {
+        synchronized (DISTANCE_TABLES) {
+            if (DISTANCE_TABLES.containsKey(maze)) return DISTANCE_TABLES.get(maze);
+        }
+        DistanceTable table = null;
+        if (DistanceTable.countWalkable(grid) <= DistanceTable.MAX_NODES) {
+            table = new DistanceTable(grid);
+        }
+        synchronized (DISTANCE_TABLES) {
+            DISTANCE_TABLES.put(maze, table);
+        }
+        return table;
+    }
+
+    private void resetPellets() {
+        pellets.reset();
+        if (listener != null) listener.levelLoaded();
+    }
+
+    /**
+     * Advances the simulation by one tick.
+     * @param input the direction the player wants to go next ('U', 'D', 'L' or 'R')
+     */
+    public void step(char input) {
+        if (gameOver) return;
+        nextDirection = input;
+        tick++;
+
+        pacman.savePosition();
+        for (int i = 0; i < ghosts.size(); i++) ghosts.get(i).savePosition();
+        ghostAI.beforeTick(this);
+
+        steer(pacman, nextDirection, wallGrid);
+
+        for (int i = 0; i < ghosts.size(); i++) {
+            Ghost ghost = ghosts.get(i);
+            entityChecks++;
+            if (ghost.collidesWith(pacman)) {
+                if (!pacman.loseLife()) {
+                    gameOver = true;
+                    return;
+                }
+                resetPositions();
+            }
+
+            if (ghostInputs[i] != 0) {
+                steer(ghost, ghostInputs[i], wallGrid);
+                continue;
+            }
+
+            if (ghost.shouldEscapeSpawn(tileSize * 9)) {
+                char prevDir = ghost.getDirection();
+                ghost.updateDirection('U');
+                ghost.move();
+
+                if (wallGrid.collidesWithWall(ghost)) {
+                    ghost.undoMove();
+                    ghost.updateDirection(prevDir);
+                } else {
+                    continue;
+                }
+            }
+
+            if (ghost.getX() % tileSize == 0 && ghost.getY() % tileSize == 0) {
+                char steer = ghostAI.chooseDirection(this, ghost);
+                if (steer != ghost.getDirection()) ghost.updateDirection(steer);
+            }
+
+            ghost.move();
+
+            if (wallGrid.collidesWithWall(ghost) || ghost.getX() <= 0 || ghost.getX() + ghost.getWidth() >= boardWidth) {
+                ghost.undoMove();
+                char steer = ghostAI.chooseDirection(this, ghost);
+                if (steer == ghost.getDirection()) steer = directions[random.nextInt(4)];
+                ghost.updateDirection(steer);
+            }
+        }
+
+        eatPellets();
+
+        if (pellets.isEmpty()) {
+            resetPellets();
+            resetPositions();
+        }
+    }
+
+    /**
+     * Pac-Man's movement rule, also used for human ghosts and by network clients to predict
+     * their own moves: turn to the input if the way is open, then move unless a wall is ahead.
+     */
+    public static <T extends GameEntity & Movable> void steer(T entity, char input, CollisionGrid walls) {
+        if (entity.getDirection() != input) {
+            char prevDirection = entity.getDirection();
+            entity.updateDirection(input);
+            entity.move();
+
+            if (walls.collidesWithWall(entity)) {
+                entity.undoMove();
+                entity.updateDirection(prevDirection);
+            }
+        }
+
+        entity.move();
+        if (walls.collidesWithWall(entity)) {
+            entity.undoMove();
+        }
+    }
+
+    /** Eats every pellet whose rectangle overlaps Pac-Man; only the one or two tiles he spans are looked at. */
+    private void eatPellets() {
+        int firstColumn = Math.floorDiv(pacman.getX() - pellet.getX() - pellet.getWidth(), tileSize) + 1;
+        int lastColumn = Math.floorDiv(pacman.getX() + pacman.getWidth() - pellet.getX() - 1, tileSize);
+        int firstRow = Math.floorDiv(pacman.getY() - pellet.getY() - pellet.getHeight(), tileSize) + 1;
+        int lastRow = Math.floorDiv(pacman.getY() + pacman.getHeight() - pellet.getY() - 1, tileSize);
+
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                if (pellets.eat(r, c)) {
+                    score += pellet.getPoints();
+                    pelletsEaten++;
+                    if (listener != null) listener.pelletEaten(r, c);
+                }
+            }
+        }
+    }
+
+    public void resetPositions() {
+        pacman.reset();
+        for (int i = 0; i < ghosts.size(); i++) {
+            Ghost ghost = ghosts.get(i);
+            ghost.reset();
+            ghost.updateDirection(directions[random.nextInt(4)]);
+        }
+    }
+
+    /** Starts a game whose every random choice follows from the seed; used by InputLog replays. */
+    public void newGame(long seed) {
+        random.setSeed(seed);
+        newGame();
+    }
+
+    /** True if the same seed and inputs always give the same game; human ghosts are not logged. */
+    public boolean isDeterministic() {
+        for (char input : ghostInputs) {
+            if (input != 0) return false;
+        }
+        return ghostAI.isDeterministic();
+    }
+
+    /**
+     * Hash of everything a tick can change: tick, score, lives, pellets and every entity's
+     * position and direction. Two runs that agree on it are in the same state.
+     */
+    public long stateHash() {
+        long hash = 0xCBF29CE484222325L;
+        hash = mix(hash, tick);
+        hash = mix(hash, score);
+        hash = mix(hash, pelletsEaten);
+        hash = mix(hash, gameOver ? 1 : 0);
+        hash = mix(hash, nextDirection);
+        hash = mix(hash, pacman.getLives());
+        hash = mix(hash, entityHash(pacman.getX(), pacman.getY(), pacman.getDirection(), pacman.getVelocityX(), pacman.getVelocityY()));
+        for (int i = 0; i < ghosts.size(); i++) {
+            Ghost ghost = ghosts.get(i);
+            hash = mix(hash, entityHash(ghost.getX(), ghost.getY(), ghost.getDirection(), ghost.getVelocityX(), ghost.getVelocityY()));
+        }
+        return mix(hash, pellets.contentHash());
+    }
+
+    /**
+     * Snapshot layout: HEADER_WORDS words (tick, score, pellets eaten, pellets remaining,
+     * game-over flag | next direction << 1, RNG state, lives), then two words per entity
+     * (Pac-Man first, then ghosts) and the pellet bitmap.
+     */
+    private static final int HEADER_WORDS = 7;
+
+    /** Length of the long[] that snapshot() fills; fixed for the life of the world. */
+    public int snapshotLength() {
+        return HEADER_WORDS + 2 * (1 + ghosts.size()) + pellets.getWordCount();
+    }
+
+    /** Copies the whole simulation state into the buffer; allocates nothing. */
+    public void snapshot(long[] buffer) {
+        buffer[0] = tick;
+        buffer[1] = score;
+        buffer[2] = pelletsEaten;
+        buffer[3] = pellets.getRemaining();
+        buffer[4] = (gameOver ? 1 : 0) | (nextDirection << 1);
+        buffer[5] = random.getState();
+        buffer[6] = pacman.getLives();
+        int offset = HEADER_WORDS;
+        buffer[offset++] = packPosition(pacman.getX(), pacman.getY());
+        buffer[offset++] = packMotion(pacman.getDirection(), pacman.getVelocityX(), pacman.getVelocityY(), false);
+        for (int i = 0; i < ghosts.size(); i++) {
+            Ghost ghost = ghosts.get(i);
+            buffer[offset++] = packPosition(ghost.getX(), ghost.getY());
+            buffer[offset++] = packMotion(ghost.getDirection(), ghost.getVelocityX(), ghost.getVelocityY(), ghost.isScared());
+        }
+        pellets.copyTo(buffer, offset);
+    }
+
+    /**
+     * Puts the world back in a snapshotted state, reusing every existing object. Entities
+     * are placed without interpolation, as after a reset. A listener hears about each
+     * pellet that is gone and, if any came back, one levelLoaded().
+     */
+    public void restore(long[] buffer) {
+        tick = buffer[0];
+        score = (int) buffer[1];
+        pelletsEaten = (int) buffer[2];
+        gameOver = (buffer[4] & 1) != 0;
+        nextDirection = (char) (buffer[4] >>> 1);
+        random.setState(buffer[5]);
+        pacman.setLives((int) buffer[6]);
+        int offset = HEADER_WORDS;
+        pacman.setX(unpackX(buffer[offset]));
+        pacman.setY(unpackY(buffer[offset++]));
+        long motion = buffer[offset++];
+        pacman.updateDirection(unpackDirection(motion));
+        pacman.setVelocityX(unpackVelocityX(motion));
+        pacman.setVelocityY(unpackVelocityY(motion));
+        pacman.savePosition();
+        for (int i = 0; i < ghosts.size(); i++) {
+            Ghost ghost = ghosts.get(i);
+            ghost.setX(unpackX(buffer[offset]));
+            ghost.setY(unpackY(buffer[offset++]));
+            motion = buffer[offset++];
+            ghost.updateDirection(unpackDirection(motion));
+            ghost.setVelocityX(unpackVelocityX(motion));
+            ghost.setVelocityY(unpackVelocityY(motion));
+            boolean scared = ((motion >>> 48) & 1) != 0;
+            if (ghost.isScared() != scared) ghost.setScared(scared);
+            ghost.savePosition();
+        }
+        if (listener == null) pellets.copyFrom(buffer, offset, (int) buffer[3]);
+        else pellets.copyFrom(buffer, offset, (int) buffer[3], listener);
+    }
+
+    /** Pac-Man's direction in a snapshot, without restoring it. */
+    public static char snapshotDirection(long[] buffer) {
+        return unpackDirection(buffer[HEADER_WORDS + 1]);
+    }
+
+    private static long packPosition(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    private static int unpackX(long position) { return (int) (position >> 32); }
+    private static int unpackY(long position) { return (int) position; }
+
+    private static long packMotion(char direction, int velocityX, int velocityY, boolean scared) {
+        return direction | ((velocityX & 0xFFFFL) << 16) | ((velocityY & 0xFFFFL) << 32) | ((scared ? 1L : 0L) << 48);
+    }
+
+    private static char unpackDirection(long motion) { return (char) motion; }
+    private static int unpackVelocityX(long motion) { return (short) (motion >>> 16); }
+    private static int unpackVelocityY(long motion) { return (short) (motion >>> 32); }
+
+    private static long entityHash(int x, int y, char direction, int velocityX, int velocityY) {
+        return ((long) x << 40) ^ ((long) y << 16) ^ ((long) direction << 8) ^ (velocityX * 31L + velocityY);
+    }
+
+    private static long mix(long hash, long value) {
+        return (hash ^ value) * 0x100000001B3L;
+    }
+
+    public void newGame() {
+        resetPellets();
+        resetPositions();
+        pacman.setLives(STARTING_LIVES);
+        score = 0;
+        pelletsEaten = 0;
+        tick = 0;
+        gameOver = false;
+        nextDirection = 'R';
+    }
+}
@@ -0,0 +1,18 @@
+package engine;
+
+import model.Ghost;
+
+/**
+ * Steering strategy for ghosts.
+ * GameWorld asks for a direction whenever a ghost sits exactly on a tile or is blocked;
+ * if a blocked ghost gets its blocked direction back, it falls back to a random one.
+ */
+public interface GhostAI {
+    /** Called once at the start of every tick, before any ghost moves. */
+    default void beforeTick(GameWorld world) {}
+
+    char chooseDirection(GameWorld world, Ghost ghost);
+
+    /** False if decisions depend on timing (e.g. a background search), which breaks replays. */
+    default boolean isDeterministic() { return true; }
+}
@@ -0,0 +1,278 @@
+package engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import exceptions.GameException;
+
+/**
+ * A recorded game: the seed it started from plus the player's input, enough to re-run it
+ * exactly (see Replay).
+ *
+ * Only ticks where the input changes are stored, each as one varint holding the ticks
+ * since the previous change shifted left by 2 with the direction in the low 2 bits; a
+ * change less than 32 ticks after the last costs one byte. Every HASH_INTERVAL ticks the
+ * world's stateHash() is stored too, so a replay can say where it diverged, and so is the
+ * hash at the last tick (when the game ends, or at finish()), so the ticks after the last
+ * checkpoint are verified as well.
+ *
+ * The ghost AI is part of the starting state, so its kind is stored too and Replay installs
+ * the same one; only the game's own AIs can be named (see ghostAIKind()).
+ *
+ * File (big-endian): MAGIC, short VERSION, long seed, int tile size, int maze fingerprint,
+ * from version 3 a ghost AI kind byte, int hash interval, long ticks, int event count,
+ * int event bytes + events, int hash count + hashes, then from version 2 a final-hash
+ * flag byte + long final hash.
+ */
+public class InputLog {
+
+    public static final int HASH_INTERVAL = 600; // 30 seconds at 20 ticks/sec
+
+    public static final byte AI_PERSONALITY = 0;
+    public static final byte AI_FLOW_FIELD = 1; // sync FlowField
+    public static final byte AI_RANDOM = 2;
+
+    private static final int MAGIC = 0x504D524C; // "PMRL"
+    private static final short VERSION = 3;
+    // magic, version, seed, tile size, maze fingerprint, ghost AI, hash interval, ticks, event count, event bytes
+    private static final int HEADER_BYTES = 4 + 2 + 8 + 4 + 4 + 1 + 4 + 8 + 4 + 4;
+    private static final char[] DIRECTIONS = {'U', 'D', 'L', 'R'};
+
+    private long seed;
+    private int tileSize;
+    private int mazeFingerprint;
+    private byte ghostAI;
+    private int hashInterval;
+    private long ticks;
+
+    private byte[] events = new byte[256];
+    private int eventBytes;
+    private int eventCount;
+    private long[] hashes = new long[16];
+    private int hashCount;
+    private boolean hasFinalHash;
+    private long finalHash;
+
+    private char lastDirection = 'R';
+    private long lastChangeTick;
+
+    private InputLog(long seed, int tileSize, int mazeFingerprint, byte ghostAI, int hashInterval) {
+        this.seed = seed;
+        this.tileSize = tileSize;
+        this.mazeFingerprint = mazeFingerprint;
+        this.ghostAI = ghostAI;
+        this.hashInterval = hashInterval;
+    }
+
+    /**
+     * Restarts the world as a new game from the seed and returns an empty log for it.
+     * The ghost AI must be deterministic (e.g. a FlowField in sync mode) and one of the
+     * game's own, so a replay can rebuild it.
+     */
+    public static InputLog start(GameWorld world, long seed) throws GameException {
+        if (!world.isDeterministic()) {
+            throw new GameException("Ghost AI is not deterministic; cannot record", GameException.INVALID_STATE);
+        }
+        byte ghostAI = ghostAIKind(world.getGhostAI());
+        if (ghostAI < 0) {
+            throw new GameException("Ghost AI " + world.getGhostAI().getClass().getName() + " cannot be recorded", GameException.INVALID_STATE);
+        }
+        world.newGame(seed);
+        return new InputLog(seed, world.getTileSize(), world.getMaze().fingerprint(), ghostAI, HASH_INTERVAL);
+    }
+
+    /** The AI_* constant for one of the game's own ghost AIs, or -1 for any other. */
+    public static byte ghostAIKind(GhostAI ai) {
+        if (ai.getClass() == PersonalityGhostAI.class) return AI_PERSONALITY;
+        if (ai.getClass() == FlowFieldGhostAI.class) return AI_FLOW_FIELD;
+        if (ai.getClass() == RandomGhostAI.class) return AI_RANDOM;
+        return -1;
+    }
+
+    public long getSeed() { return seed; }
+    public int getTileSize() { return tileSize; }
+    public int getMazeFingerprint() { return mazeFingerprint; }
+    /** One of the AI_* constants; AI_PERSONALITY for files older than version 3. */
+    public byte getGhostAI() { return ghostAI; }
+    public int getHashInterval() { return hashInterval; }
+    public long getTicks() { return ticks; }
+    public int getEventCount() { return eventCount; }
+    public int getEventBytes() { return eventBytes; }
+    public int getHashCount() { return hashCount; }
+    public long getHash(int index) { return hashes[index]; }
+    /** Whether the state at the last recorded tick is known (always, for logs saved after finish()). */
+    public boolean hasFinalHash() { return hasFinalHash; }
+    public long getFinalHash() { return finalHash; }
+
+    /** Size of the saved file in bytes. */
+    public int getEncodedSize() {
+        return HEADER_BYTES + eventBytes + 4 + 8 * hashCount + 1 + 8;
+    }
+
+    /**
+     * Records the world's state at the last tick, so a replay also checks the ticks after
+     * the last checkpoint. Call before save() when the session ends without a game over;
+     * does nothing if the world was stepped without this log.
+     */
+    public void finish(GameWorld world) {
+        if (world.getTick() != ticks) return;
+        finalHash = world.stateHash();
+        hasFinalHash = true;
+    }
+
+    /** Steps the world with the input and records it; does nothing once the game is over. */
+    public void step(GameWorld world, char input) {
+        if (world.isGameOver()) return;
+        world.step(input);
+        long tick = world.getTick();
+        if (input != lastDirection) {
+            writeVarint(((tick - lastChangeTick) << 2) | directionIndex(input));
+            eventCount++;
+            lastDirection = input;
+            lastChangeTick = tick;
+        }
+        ticks = tick;
+        hasFinalHash = false;
+        if (tick % hashInterval == 0) {
+            if (hashCount == hashes.length) hashes = Arrays.copyOf(hashes, hashCount * 2);
+            hashes[hashCount++] = world.stateHash();
+        }
+        if (world.isGameOver()) finish(world);
+    }
+
+    /** Walks the recorded input one tick at a time. */
+    public Reader reader() {
+        return new Reader();
+    }
+
+    public class Reader {
+        private int position;
+        private long tick;
+        private long nextChange = -1;
+        private char nextDirection;
+        private char direction = 'R';
+
+        private Reader() {
+            readEvent();
+        }
+
+        /** Input for the next tick. */
+        public char next() {
+            tick++;
+            if (tick == nextChange) {
+                direction = nextDirection;
+                readEvent();
+            }
+            return direction;
+        }
+
+        private void readEvent() {
+            if (position >= eventBytes) {
+                nextChange = -1;
+                return;
+            }
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = events[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            nextChange = (nextChange < 0 ? 0 : nextChange) + (value >>> 2);
+            nextDirection = DIRECTIONS[(int) (value & 3)];
+        }
+    }
+
+    public void save(String filename) throws GameException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(seed);
+            out.writeInt(tileSize);
+            out.writeInt(mazeFingerprint);
+            out.writeByte(ghostAI);
+            out.writeInt(hashInterval);
+            out.writeLong(ticks);
+            out.writeInt(eventCount);
+            out.writeInt(eventBytes);
+            out.write(events, 0, eventBytes);
+            out.writeInt(hashCount);
+            for (int i = 0; i < hashCount; i++) {
+                out.writeLong(hashes[i]);
+            }
+            out.writeBoolean(hasFinalHash);
+            out.writeLong(finalHash);
+        } catch (IOException e) {
+            throw new GameException("Failed to save replay: " + filename, GameException.FILE_ERROR, e);
+        }
+    }
+
+    /** Array lengths in the file are checked against its size, so a damaged file cannot over-allocate. */
+    public static InputLog load(String filename) throws GameException {
+        try (FileInputStream file = new FileInputStream(filename);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+            int magic = in.readInt();
+            short version = in.readShort();
+            if (magic != MAGIC || version < 1 || version > VERSION) {
+                throw new GameException("Not a replay file: " + filename, GameException.FILE_ERROR);
+            }
+            long remaining = file.getChannel().size() - HEADER_BYTES + (version >= 3 ? 0 : 1);
+            int tail = version >= 2 ? 1 + 8 : 0;
+            long seed = in.readLong();
+            int tileSize = in.readInt();
+            int mazeFingerprint = in.readInt();
+            byte ghostAI = version >= 3 ? in.readByte() : AI_PERSONALITY;
+            if (ghostAI < AI_PERSONALITY || ghostAI > AI_RANDOM) {
+                throw new GameException("Damaged replay file: " + filename, GameException.FILE_ERROR);
+            }
+            InputLog log = new InputLog(seed, tileSize, mazeFingerprint, ghostAI, in.readInt());
+            log.ticks = in.readLong();
+            log.eventCount = in.readInt();
+            log.eventBytes = in.readInt();
+            if (log.eventBytes < 0 || log.eventBytes > remaining - 4 - tail) {
+                throw new GameException("Damaged replay file: " + filename, GameException.FILE_ERROR);
+            }
+            log.events = new byte[log.eventBytes];
+            in.readFully(log.events);
+            log.hashCount = in.readInt();
+            if (log.hashCount < 0 || log.hashCount > (remaining - 4 - log.eventBytes - tail) / 8) {
+                throw new GameException("Damaged replay file: " + filename, GameException.FILE_ERROR);
+            }
+            log.hashes = new long[Math.max(1, log.hashCount)];
+            for (int i = 0; i < log.hashCount; i++) {
+                log.hashes[i] = in.readLong();
+            }
+            if (version >= 2) {
+                log.hasFinalHash = in.readBoolean();
+                log.finalHash = in.readLong();
+            }
+            return log;
+        } catch (IOException e) {
+            throw new GameException("Failed to read replay: " + filename, GameException.FILE_ERROR, e);
+        }
+    }
+
+    private void writeVarint(long value) {
+        if (eventBytes + 10 > events.length) events = Arrays.copyOf(events, events.length * 2);
+        while ((value & ~0x7FL) != 0) {
+            events[eventBytes++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        events[eventBytes++] = (byte) value;
+    }
+
+    private static int directionIndex(char direction) {
+        switch (direction) {
+            case 'U': return 0;
+            case 'D': return 1;
+            case 'L': return 2;
+            default: return 3;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package engine;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+
+/**
+ * Static maze layout: a packed tile-type grid (2 bits per tile) plus spawn points.
+ * The grid may live on the heap or in a memory-mapped file; either way no per-tile
+ * objects are created. An optional legal-move table stores 4 bits per tile.
+ */
+public class Maze {
+
+    public static final int EMPTY = 0;
+    public static final int WALL = 1;
+    public static final int PELLET = 2;
+
+    private int rowCount;
+    private int columnCount;
+    private ByteBuffer grid;
+    private ByteBuffer moves;
+    private int pacmanRow;
+    private int pacmanColumn;
+    private int[] ghostRows;
+    private int[] ghostColumns;
+    private char[] ghostCodes;
+
+    public Maze(int rowCount, int columnCount, ByteBuffer grid, ByteBuffer moves,
+                int pacmanRow, int pacmanColumn, int[] ghostRows, int[] ghostColumns, char[] ghostCodes) {
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.grid = grid;
+        this.moves = moves;
+        this.pacmanRow = pacmanRow;
+        this.pacmanColumn = pacmanColumn;
+        this.ghostRows = ghostRows;
+        this.ghostColumns = ghostColumns;
+        this.ghostCodes = ghostCodes;
+    }
+
+    /**
+     * Packs a character map (X = wall, O = skip, P = pac man, ' ' = food, b/o/p/r = ghosts).
+     */
+    public static Maze fromTileMap(String[] tileMap) {
+        int rows = tileMap.length;
+        int columns = tileMap[0].length();
+        ByteBuffer grid = ByteBuffer.allocate(packedGridBytes(rows, columns));
+        int pacRow = -1;
+        int pacColumn = -1;
+        ArrayList<int[]> ghosts = new ArrayList<>();
+
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                char ch = tileMap[r].charAt(c);
+                if (ch == 'X') {
+                    setTile(grid, r * columns + c, WALL);
+                } else if (ch == ' ') {
+                    setTile(grid, r * columns + c, PELLET);
+                } else if (ch == 'P') {
+                    pacRow = r;
+                    pacColumn = c;
+                } else if (ch == 'b' || ch == 'o' || ch == 'p' || ch == 'r') {
+                    ghosts.add(new int[]{r, c, ch});
+                }
+            }
+        }
+        if (pacRow < 0) throw new IllegalArgumentException("Maze has no Pac-Man spawn (P)");
+
+        int[] ghostRows = new int[ghosts.size()];
+        int[] ghostColumns = new int[ghosts.size()];
+        char[] ghostCodes = new char[ghosts.size()];
+        for (int i = 0; i < ghosts.size(); i++) {
+            ghostRows[i] = ghosts.get(i)[0];
+            ghostColumns[i] = ghosts.get(i)[1];
+            ghostCodes[i] = (char) ghosts.get(i)[2];
+        }
+        return new Maze(rows, columns, grid, null, pacRow, pacColumn, ghostRows, ghostColumns, ghostCodes);
+    }
+
+    public static int packedGridBytes(int rows, int columns) {
+        return (int) (((long) rows * columns + 3) / 4);
+    }
+
+    public static int moveTableBytes(int rows, int columns) {
+        return (int) (((long) rows * columns + 1) / 2);
+    }
+
+    public int getRowCount() { return rowCount; }
+    public int getColumnCount() { return columnCount; }
+    public int getPacmanRow() { return pacmanRow; }
+    public int getPacmanColumn() { return pacmanColumn; }
+    public int getGhostCount() { return ghostRows.length; }
+    public int getGhostRow(int index) { return ghostRows[index]; }
+    public int getGhostColumn(int index) { return ghostColumns[index]; }
+    /** Map character of a ghost spawn: b, o, p or r. */
+    public char getGhostCode(int index) { return ghostCodes[index]; }
+    public boolean hasMoveTable() { return moves != null; }
+
+    public String getGhostColor(int index) {
+        switch (ghostCodes[index]) {
+            case 'b': return "blue";
+            case 'o': return "orange";
+            case 'p': return "pink";
+            default: return "red";
+        }
+    }
+
+    public int tile(int row, int column) {
+        int index = row * columnCount + column;
+        return (grid.get(index >>> 2) >>> ((index & 3) * 2)) & 3;
+    }
+
+    /**
+     * Bitmask of open neighbours: 1 = up, 2 = down, 4 = left, 8 = right.
+     * Read from the compiled table when present, otherwise computed from the grid.
+     */
+    public int legalMoves(int row, int column) {
+        if (moves != null) {
+            int index = row * columnCount + column;
+            return (moves.get(index >>> 1) >>> ((index & 1) * 4)) & 15;
+        }
+        int mask = 0;
+        if (row > 0 && tile(row - 1, column) != WALL) mask |= 1;
+        if (row < rowCount - 1 && tile(row + 1, column) != WALL) mask |= 2;
+        if (column > 0 && tile(row, column - 1) != WALL) mask |= 4;
+        if (column < columnCount - 1 && tile(row, column + 1) != WALL) mask |= 8;
+        return mask;
+    }
+
+    /** Read-only view of the packed grid, for writing it to a file. */
+    public ByteBuffer packedGrid() {
+        ByteBuffer view = grid.asReadOnlyBuffer();
+        view.clear();
+        return view;
+    }
+
+    /** CRC of the layout and spawn points, so a replay can tell it is on the maze it was recorded on. */
+    public int fingerprint() {
+        CRC32 crc = new CRC32();
+        crc.update(packedGrid());
+        ByteBuffer spawns = ByteBuffer.allocate(16 + 10 * ghostRows.length);
+        spawns.putInt(rowCount).putInt(columnCount).putInt(pacmanRow).putInt(pacmanColumn);
+        for (int i = 0; i < ghostRows.length; i++) {
+            spawns.putInt(ghostRows[i]).putInt(ghostColumns[i]).putChar(ghostCodes[i]);
+        }
+        spawns.flip();
+        crc.update(spawns);
+        return (int) crc.getValue();
+    }
+
+    private static void setTile(ByteBuffer grid, int index, int type) {
+        int b = grid.get(index >>> 2) & ~(3 << ((index & 3) * 2));
+        grid.put(index >>> 2, (byte) (b | (type << ((index & 3) * 2))));
+    }
+}
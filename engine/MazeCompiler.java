@@ -0,0 +1,186 @@
+package engine;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+import exceptions.GameException;
+
+/**
+ * Reads text mazes (.maze) and compiles them into a binary form (.mzb) that loads by
+ * memory-mapping the file, so even very large maps are ready without parsing.
+ *
+ * Text format: one line per row using the same characters as GameWorld.DEFAULT_MAP.
+ * Blank lines and lines starting with ';' are ignored.
+ *
+ * Binary format (big-endian):
+ *   int magic "PMAZ", short version, short flags (1 = legal-move table present)
+ *   int rows, int columns, int pacmanRow, int pacmanColumn, int ghostCount
+ *   ghostCount x (int row, int column, int code)
+ *   packed tile grid, 2 bits per tile (Maze.EMPTY / WALL / PELLET)
+ *   optional legal-move table, 4 bits per tile (see Maze.legalMoves)
+ *
+ * Usage: java engine.MazeCompiler input.maze output.mzb [--moves]
+ */
+public class MazeCompiler {
+
+    public static final int MAGIC = 0x504D415A;
+    public static final short VERSION = 1;
+    public static final short FLAG_MOVES = 1;
+
+    private static final int HEADER_BYTES = 28;
+    private static final int GHOST_BYTES = 12;
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: java engine.MazeCompiler input.maze output.mzb [--moves]");
+            return;
+        }
+        boolean moves = args.length > 2 && args[2].equals("--moves");
+        try {
+            Maze maze = readText(args[0]);
+            compile(maze, args[1], moves);
+            System.out.println("Compiled " + maze.getRowCount() + "x" + maze.getColumnCount()
+                + " maze with " + maze.getGhostCount() + " ghosts to " + args[1]);
+        } catch (GameException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public static Maze readText(String filename) throws GameException {
+        ArrayList<String> rows = new ArrayList<>();
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new FileReader(filename));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith(";")) continue;
+                if (!rows.isEmpty() && line.length() != rows.get(0).length()) {
+                    throw new GameException("Maze row " + (rows.size() + 1) + " has a different width", GameException.FILE_ERROR);
+                }
+                rows.add(line);
+            }
+        } catch (IOException e) {
+            throw new GameException("Failed to read maze", GameException.FILE_ERROR, e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    // ignore close errors
+                }
+            }
+        }
+
+        if (rows.isEmpty()) throw new GameException("Maze file is empty", GameException.FILE_ERROR);
+        try {
+            return Maze.fromTileMap(rows.toArray(new String[0]));
+        } catch (IllegalArgumentException e) {
+            throw new GameException(e.getMessage(), GameException.FILE_ERROR, e);
+        }
+    }
+
+    /**
+     * Writes a maze in binary form, optionally with a precomputed legal-move table.
+     */
+    public static void compile(Maze maze, String filename, boolean includeMoves) throws GameException {
+        int rows = maze.getRowCount();
+        int columns = maze.getColumnCount();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + GHOST_BYTES * maze.getGhostCount());
+        header.putInt(MAGIC).putShort(VERSION).putShort(includeMoves ? FLAG_MOVES : 0);
+        header.putInt(rows).putInt(columns);
+        header.putInt(maze.getPacmanRow()).putInt(maze.getPacmanColumn());
+        header.putInt(maze.getGhostCount());
+        for (int i = 0; i < maze.getGhostCount(); i++) {
+            header.putInt(maze.getGhostRow(i)).putInt(maze.getGhostColumn(i)).putInt(maze.getGhostCode(i));
+        }
+        header.flip();
+
+        ByteBuffer moves = null;
+        if (includeMoves) {
+            moves = ByteBuffer.allocate(Maze.moveTableBytes(rows, columns));
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < columns; c++) {
+                    int index = r * columns + c;
+                    int shift = (index & 1) * 4;
+                    moves.put(index >>> 1, (byte) (moves.get(index >>> 1) | (maze.legalMoves(r, c) << shift)));
+                }
+            }
+        }
+
+        Path path = Paths.get(filename);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header);
+            writeFully(channel, maze.packedGrid());
+            if (moves != null) writeFully(channel, moves);
+        } catch (IOException e) {
+            throw new GameException("Failed to write compiled maze", GameException.FILE_ERROR, e);
+        }
+    }
+
+    /**
+     * Maps a compiled maze read-only. The tile grid and move table stay in the mapping;
+     * only the header and spawn points are copied onto the heap.
+     */
+    public static Maze load(String filename) throws GameException {
+        MappedByteBuffer file;
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new GameException("Failed to map compiled maze", GameException.FILE_ERROR, e);
+        }
+
+        if (file.remaining() < HEADER_BYTES || file.getInt() != MAGIC) {
+            throw new GameException("Not a compiled maze: " + filename, GameException.FILE_ERROR);
+        }
+        short version = file.getShort();
+        short flags = file.getShort();
+        if (version != VERSION) {
+            throw new GameException("Unsupported maze version " + version, GameException.FILE_ERROR);
+        }
+        int rows = file.getInt();
+        int columns = file.getInt();
+        int pacmanRow = file.getInt();
+        int pacmanColumn = file.getInt();
+        int ghostCount = file.getInt();
+        if (rows <= 0 || columns <= 0 || ghostCount < 0) {
+            throw new GameException("Corrupt maze header", GameException.FILE_ERROR);
+        }
+
+        int gridBytes = Maze.packedGridBytes(rows, columns);
+        int moveBytes = (flags & FLAG_MOVES) != 0 ? Maze.moveTableBytes(rows, columns) : 0;
+        if (file.remaining() != (long) GHOST_BYTES * ghostCount + gridBytes + moveBytes) {
+            throw new GameException("Compiled maze is truncated", GameException.FILE_ERROR);
+        }
+
+        int[] ghostRows = new int[ghostCount];
+        int[] ghostColumns = new int[ghostCount];
+        char[] ghostCodes = new char[ghostCount];
+        for (int i = 0; i < ghostCount; i++) {
+            ghostRows[i] = file.getInt();
+            ghostColumns[i] = file.getInt();
+            ghostCodes[i] = (char) file.getInt();
+        }
+
+        ByteBuffer grid = file.slice();
+        grid.limit(gridBytes);
+        ByteBuffer moves = null;
+        if (moveBytes > 0) {
+            file.position(file.position() + gridBytes);
+            moves = file.slice();
+        }
+        return new Maze(rows, columns, grid, moves, pacmanRow, pacmanColumn, ghostRows, ghostColumns, ghostCodes);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+}
@@ -0,0 +1,334 @@
+package engine;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import model.Player;
+
+/**
+ * Monte Carlo Tree Search autopilot for Pac-Man.
+ *
+ * Root-parallel: each worker thread owns a clone GameWorld on the same maze and searches
+ * its own tree from a snapshot of the live world until the time budget runs out; the
+ * root visit counts of all workers are summed and the most visited direction wins.
+ * A tree edge holds a direction for MACRO_TICKS ticks (one tile at default speed);
+ * playouts keep going straight and turn at random at junctions. A playout that loses a
+ * life scores 0, otherwise 0.3 plus credit for pellets eaten and for ending near one.
+ * Trees live in preallocated arrays, so a decision allocates almost nothing.
+ *
+ * Clones use the default ghost AI, and the snapshot includes the world's RNG, so each
+ * simulated future is the one the real game would produce for those inputs.
+ */
+public class MctsPlanner {
+
+    public static final int MACRO_TICKS = 4;
+    public static final int MAX_DEPTH = 8;
+    public static final int ROLLOUT_TICKS = 48;
+    private static final int MAX_NODES = 1 << 15;
+    private static final double EXPLORATION = 0.7;
+    // searching stops here; the rest of the budget covers thread hand-off and merging
+    private static final double SEARCH_FRACTION = 0.9;
+
+    private ExecutorService pool;
+    private ExecutorService coordinator;
+    private ArrayList<Worker> workers = new ArrayList<>();
+    private long budgetNanos;
+
+    private long[] pendingRoot;
+    private AtomicBoolean planning = new AtomicBoolean();
+    private volatile char direction = 'R';
+
+    private volatile long decisions;
+    private volatile long playouts;
+    private volatile long searchNanos;
+    private volatile long lastLatencyNanos;
+    private volatile long maxLatencyNanos;
+    private volatile long overruns;
+
+    /**
+     * @param world       the live world; clones are built from its maze and tile size
+     * @param threads     worker threads, one search tree each
+     * @param budgetNanos time each decision may take; keep it under the tick length
+     */
+    public MctsPlanner(GameWorld world, int threads, long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+        this.pendingRoot = new long[world.snapshotLength()];
+        for (int i = 0; i < threads; i++) {
+            workers.add(new Worker(new GameWorld(world.getMaze(), world.getTileSize(), new GameRandom(i)), i));
+        }
+        pool = Executors.newFixedThreadPool(threads, daemon("mcts-worker"));
+        coordinator = Executors.newSingleThreadExecutor(daemon("mcts-planner"));
+    }
+
+    public long getBudgetNanos() { return budgetNanos; }
+    public int getThreads() { return workers.size(); }
+    public long getDecisions() { return decisions; }
+    public long getPlayouts() { return playouts; }
+    /** Playouts per second of search time, all workers together. */
+    public double getPlayoutsPerSecond() { return searchNanos == 0 ? 0 : playouts * 1e9 / searchNanos; }
+    public long getLastLatencyNanos() { return lastLatencyNanos; }
+    public long getMaxLatencyNanos() { return maxLatencyNanos; }
+    /** Decisions that took more than a millisecond over budget. */
+    public long getOverruns() { return overruns; }
+
+    /**
+     * Starts planning from the world's current state unless a plan is already running.
+     * Only takes a snapshot, so it is safe to call from the game loop under the world lock.
+     */
+    public void requestPlan(GameWorld world) {
+        if (!planning.compareAndSet(false, true)) return;
+        world.snapshot(pendingRoot);
+        coordinator.execute(() -> {
+            try {
+                direction = plan(pendingRoot);
+            } finally {
+                planning.set(false);
+            }
+        });
+    }
+
+    /** The latest decision; never blocks. */
+    public char getDirection() {
+        return direction;
+    }
+
+    /** Plans from the world's current state on the calling thread. */
+    public char plan(GameWorld world) {
+        long[] root = new long[world.snapshotLength()];
+        world.snapshot(root);
+        return plan(root);
+    }
+
+    /** Searches from a snapshot for up to the budget and returns the chosen direction. */
+    public char plan(long[] root) {
+        long start = System.nanoTime();
+        long deadline = start + (long) (budgetNanos * SEARCH_FRACTION);
+
+        ArrayList<Future<?>> running = new ArrayList<>();
+        for (Worker worker : workers) {
+            running.add(pool.submit(() -> worker.search(root, deadline)));
+        }
+        for (Future<?> future : running) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Planner worker failed", e.getCause());
+            }
+        }
+
+        long[] visits = new long[4];
+        long count = 0;
+        for (Worker worker : workers) {
+            for (int a = 0; a < 4; a++) visits[a] += worker.rootVisits[a];
+            count += worker.iterations;
+        }
+        char current = GameWorld.snapshotDirection(root);
+        int best = directionIndex(current);
+        for (int a = 0; a < 4; a++) {
+            if (visits[a] > visits[best]) best = a;
+        }
+
+        long latency = System.nanoTime() - start;
+        decisions++;
+        playouts += count;
+        searchNanos += latency;
+        lastLatencyNanos = latency;
+        if (latency > maxLatencyNanos) maxLatencyNanos = latency;
+        if (latency > budgetNanos + 1_000_000) overruns++;
+        return DistanceTable.DIRECTIONS[best];
+    }
+
+    public void shutdown() {
+        coordinator.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static int directionIndex(char direction) {
+        switch (direction) {
+            case 'U': return 0;
+            case 'D': return 1;
+            case 'L': return 2;
+            default: return 3;
+        }
+    }
+
+    /** One search tree over one clone world; node 0 is the root. */
+    private static class Worker {
+        private GameWorld world;
+        private Random random;
+        private int[] children = new int[MAX_NODES * 4];
+        private int[] visits = new int[MAX_NODES];
+        private double[] value = new double[MAX_NODES];
+        private int nodeCount;
+        private int[] path = new int[MAX_DEPTH + 1];
+        private long[] rootVisits = new long[4];
+        private long iterations;
+
+        Worker(GameWorld world, long seed) {
+            this.world = world;
+            this.random = new Random(seed);
+        }
+
+        void search(long[] root, long deadline) {
+            nodeCount = 1;
+            clearNode(0);
+            iterations = 0;
+            do {
+                iterate(root);
+                iterations++;
+            } while (System.nanoTime() < deadline && nodeCount < MAX_NODES - 1);
+            for (int a = 0; a < 4; a++) {
+                int child = children[a];
+                rootVisits[a] = child < 0 ? 0 : visits[child];
+            }
+        }
+
+        private void iterate(long[] root) {
+            world.restore(root);
+            int lives = world.getLives();
+            int pellets = world.getPelletsEaten();
+            long startTick = world.getTick();
+
+            int node = 0;
+            int depth = 0;
+            path[0] = 0;
+            boolean dead = false;
+            while (depth < MAX_DEPTH && !dead) {
+                int action = untried(node);
+                boolean expand = action >= 0;
+                if (!expand) action = select(node);
+
+                dead = advance(DistanceTable.DIRECTIONS[action], MACRO_TICKS, lives);
+                int child = children[node * 4 + action];
+                if (expand) {
+                    child = nodeCount++;
+                    clearNode(child);
+                    children[node * 4 + action] = child;
+                }
+                node = child;
+                path[++depth] = node;
+                if (expand) break;
+            }
+
+            if (!dead) dead = rollout(lives);
+            double reward = dead ? 0 : reward(pellets, world.getTick() - startTick);
+            for (int i = 0; i <= depth; i++) {
+                visits[path[i]]++;
+                value[path[i]] += reward;
+            }
+        }
+
+        private int untried(int node) {
+            int offset = random.nextInt(4);
+            for (int i = 0; i < 4; i++) {
+                int action = (offset + i) & 3;
+                if (children[node * 4 + action] < 0) return action;
+            }
+            return -1;
+        }
+
+        private int select(int node) {
+            double logParent = Math.log(visits[node]);
+            int best = 0;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int action = 0; action < 4; action++) {
+                int child = children[node * 4 + action];
+                double score = value[child] / visits[child] + EXPLORATION * Math.sqrt(logParent / visits[child]);
+                if (score > bestScore) {
+                    best = action;
+                    bestScore = score;
+                }
+            }
+            return best;
+        }
+
+        /** Steps the world; returns true if Pac-Man lost a life. */
+        private boolean advance(char input, int ticks, int lives) {
+            for (int t = 0; t < ticks; t++) {
+                world.step(input);
+                if (world.isGameOver() || world.getLives() < lives) return true;
+            }
+            return false;
+        }
+
+        private boolean rollout(int lives) {
+            Player pacman = world.getPacman();
+            Maze maze = world.getMaze();
+            int tileSize = world.getTileSize();
+            char input = pacman.getDirection();
+            for (int t = 0; t < ROLLOUT_TICKS; t++) {
+                int row = Math.floorDiv(pacman.getY(), tileSize);
+                int column = Math.floorDiv(pacman.getX(), tileSize);
+                boolean inside = row >= 0 && column >= 0 && row < maze.getRowCount() && column < maze.getColumnCount();
+                if (inside && pacman.getX() % tileSize == 0 && pacman.getY() % tileSize == 0) {
+                    int moves = maze.legalMoves(row, column);
+                    int reverse = 1 << (directionIndex(input) ^ 1);
+                    boolean blocked = (moves & (1 << directionIndex(input))) == 0;
+                    if (moves != 0 && (blocked || random.nextInt(4) == 0)) {
+                        int options = moves & ~reverse;
+                        if (options == 0) options = moves;
+                        input = pick(options);
+                    }
+                }
+                if (advance(input, 1, lives)) return true;
+            }
+            return false;
+        }
+
+        private char pick(int mask) {
+            int choice = random.nextInt(Integer.bitCount(mask));
+            for (int d = 0; d < 4; d++) {
+                if ((mask & (1 << d)) != 0 && choice-- == 0) return DistanceTable.DIRECTIONS[d];
+            }
+            return 'R';
+        }
+
+        /** 0.3 for surviving, up to 0.6 for eating a pellet per tile moved, up to 0.1 for ending next to one. */
+        private double reward(int pelletsBefore, long ticks) {
+            double eaten = Math.min(1.0, (world.getPelletsEaten() - pelletsBefore) / Math.max(1.0, ticks / (double) MACRO_TICKS));
+            return 0.3 + 0.6 * eaten + 0.1 / (1 + nearestPellet());
+        }
+
+        /** Path distance in tiles to the closest pellet, or a large number if unknown. */
+        private int nearestPellet() {
+            DistanceTable table = world.getDistanceTable();
+            if (table == null) return 64;
+            int tileSize = world.getTileSize();
+            Player pacman = world.getPacman();
+            int from = table.nearestNode((pacman.getY() + tileSize / 2) / tileSize, (pacman.getX() + tileSize / 2) / tileSize);
+            if (from < 0) return 64;
+            PelletBoard board = world.getPellets();
+            int columns = board.getColumnCount();
+            int best = 64;
+            for (int tile = board.nextPellet(0); tile >= 0; tile = board.nextPellet(tile + 1)) {
+                int node = table.node(tile / columns, tile % columns);
+                if (node < 0) continue;
+                int distance = table.distance(from, node);
+                if (distance >= 0 && distance < best) best = distance;
+            }
+            return best;
+        }
+
+        private void clearNode(int node) {
+            visits[node] = 0;
+            value[node] = 0;
+            for (int a = 0; a < 4; a++) children[node * 4 + a] = -1;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package engine;
+
+/**
+ * Tile-indexed pellet bitboard: one bit per tile instead of one Food object per pellet.
+ * Eating is an O(1) bit clear, the remaining count is maintained incrementally,
+ * and a level reset copies the initial bitmap back.
+ */
+public class PelletBoard {
+
+    private int rowCount;
+    private int columnCount;
+    private long[] initial;
+    private long[] bits;
+    private int initialCount;
+    private int remaining;
+
+    public PelletBoard(int rowCount, int columnCount) {
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        int words = (rowCount * columnCount + 63) >>> 6;
+        this.initial = new long[words];
+        this.bits = new long[words];
+    }
+
+    public int getRowCount() { return rowCount; }
+    public int getColumnCount() { return columnCount; }
+    public int getRemaining() { return remaining; }
+    public int getInitialCount() { return initialCount; }
+    public boolean isEmpty() { return remaining == 0; }
+
+    /** Adds a pellet to the level layout; call reset() afterwards to make it live. */
+    public void place(int row, int column) {
+        int index = row * columnCount + column;
+        long mask = 1L << index;
+        if ((initial[index >>> 6] & mask) == 0) {
+            initial[index >>> 6] |= mask;
+            initialCount++;
+        }
+    }
+
+    public void reset() {
+        System.arraycopy(initial, 0, bits, 0, bits.length);
+        remaining = initialCount;
+    }
+
+    public boolean has(int row, int column) {
+        if (row < 0 || column < 0 || row >= rowCount || column >= columnCount) return false;
+        int index = row * columnCount + column;
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /** Removes the pellet on a tile; returns false if there was none. */
+    public boolean eat(int row, int column) {
+        if (!has(row, column)) return false;
+        int index = row * columnCount + column;
+        bits[index >>> 6] &= ~(1L << index);
+        remaining--;
+        return true;
+    }
+
+    /** Tile index (row * columnCount + column) of the next pellet at or after fromIndex, or -1. */
+    public int nextPellet(int fromIndex) {
+        int word = fromIndex >>> 6;
+        if (word >= bits.length) return -1;
+        long current = bits[word] & (-1L << fromIndex);
+        while (true) {
+            if (current != 0) return (word << 6) + Long.numberOfTrailingZeros(current);
+            if (++word == bits.length) return -1;
+            current = bits[word];
+        }
+    }
+
+    /** Number of longs copyTo() writes. */
+    public int getWordCount() { return bits.length; }
+
+    /** Copies the live bitmap into the buffer, for GameWorld snapshots. */
+    public void copyTo(long[] buffer, int offset) {
+        System.arraycopy(bits, 0, buffer, offset, bits.length);
+    }
+
+    /** Restores a bitmap written by copyTo(); the caller supplies the remaining count. */
+    public void copyFrom(long[] buffer, int offset, int remaining) {
+        System.arraycopy(buffer, offset, bits, 0, bits.length);
+        this.remaining = remaining;
+    }
+
+    /** Like copyFrom(), reporting pellets that disappear and, once, a refill. */
+    public void copyFrom(long[] buffer, int offset, int remaining, WorldListener listener) {
+        boolean refilled = false;
+        for (int w = 0; w < bits.length; w++) {
+            long next = buffer[offset + w];
+            long eaten = bits[w] & ~next;
+            if ((next & ~bits[w]) != 0) refilled = true;
+            bits[w] = next;
+            while (eaten != 0) {
+                int index = (w << 6) + Long.numberOfTrailingZeros(eaten);
+                listener.pelletEaten(index / columnCount, index % columnCount);
+                eaten &= eaten - 1;
+            }
+        }
+        this.remaining = remaining;
+        if (refilled) listener.levelLoaded();
+    }
+
+    /** Hash of which pellets are left, for replay checks. */
+    public long contentHash() {
+        long hash = remaining;
+        for (int i = 0; i < bits.length; i++) {
+            hash = (hash ^ bits[i]) * 0x100000001B3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,115 @@
+package engine;
+
+import java.util.ArrayList;
+
+import model.Ghost;
+import model.Player;
+
+/**
+ * Classic chase/scatter targeting, one personality per ghost colour:
+ * red chases Pac-Man's tile, pink aims four tiles ahead of him, blue doubles the
+ * vector from red to two tiles ahead of him, and orange chases only while more than
+ * eight tiles away. Each decision is one DistanceTable lookup.
+ */
+public class PersonalityGhostAI implements GhostAI {
+
+    // alternating scatter/chase phases in ticks (20 ticks/sec); chase forever afterwards
+    private static final int[] PHASE_TICKS = {140, 400, 140, 400, 100};
+
+    private static final int[] ROW_STEP = {-1, 1, 0, 0};
+    private static final int[] COLUMN_STEP = {0, 0, -1, 1};
+
+    public boolean isScatter(long tick) {
+        long elapsed = tick;
+        for (int phase = 0; phase < PHASE_TICKS.length; phase++) {
+            if (elapsed < PHASE_TICKS[phase]) return phase % 2 == 0;
+            elapsed -= PHASE_TICKS[phase];
+        }
+        return false;
+    }
+
+    @Override
+    public char chooseDirection(GameWorld world, Ghost ghost) {
+        DistanceTable table = world.getDistanceTable();
+        if (table == null) return ghost.getDirection();
+
+        int tileSize = world.getTileSize();
+        int from = table.node(Math.floorDiv(ghost.getY(), tileSize), Math.floorDiv(ghost.getX(), tileSize));
+        if (from < 0) return ghost.getDirection();
+
+        int target = targetNode(world, table, ghost, from);
+        int reverse = directionIndex(ghost.getDirection()) ^ 1;
+
+        int hop = table.nextDirection(from, target);
+        if (hop >= 0 && hop != reverse) return DistanceTable.DIRECTIONS[hop];
+
+        // target is behind us: ghosts do not reverse, so take the best other exit
+        int best = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int d = 0; d < 4; d++) {
+            if (d == reverse) continue;
+            int neighbor = table.neighbor(from, d);
+            if (neighbor < 0) continue;
+            int distance = table.distance(neighbor, target);
+            if (distance >= 0 && distance < bestDistance) {
+                best = d;
+                bestDistance = distance;
+            }
+        }
+        if (best >= 0) return DistanceTable.DIRECTIONS[best];
+        return hop >= 0 ? DistanceTable.DIRECTIONS[hop] : ghost.getDirection();
+    }
+
+    private int targetNode(GameWorld world, DistanceTable table, Ghost ghost, int from) {
+        int tileSize = world.getTileSize();
+        int lastRow = world.getRowCount() - 1;
+        int lastColumn = world.getColumnCount() - 1;
+        Player pacman = world.getPacman();
+        int pacRow = Math.floorDiv(pacman.getY() + tileSize / 2, tileSize);
+        int pacColumn = Math.floorDiv(pacman.getX() + tileSize / 2, tileSize);
+        int facing = directionIndex(pacman.getDirection());
+        boolean scatter = isScatter(world.getTick());
+
+        switch (ghost.getColor()) {
+            case "red":
+                if (scatter) return table.nearestNode(0, lastColumn);
+                return table.nearestNode(pacRow, pacColumn);
+            case "pink":
+                if (scatter) return table.nearestNode(0, 0);
+                return table.nearestNode(pacRow + 4 * ROW_STEP[facing], pacColumn + 4 * COLUMN_STEP[facing]);
+            case "blue": {
+                if (scatter) return table.nearestNode(lastRow, lastColumn);
+                Ghost red = findGhost(world.getGhosts(), "red");
+                int pivotRow = pacRow + 2 * ROW_STEP[facing];
+                int pivotColumn = pacColumn + 2 * COLUMN_STEP[facing];
+                if (red == null) return table.nearestNode(pivotRow, pivotColumn);
+                int redRow = Math.floorDiv(red.getY(), tileSize);
+                int redColumn = Math.floorDiv(red.getX(), tileSize);
+                return table.nearestNode(2 * pivotRow - redRow, 2 * pivotColumn - redColumn);
+            }
+            default: {
+                int corner = table.nearestNode(lastRow, 0);
+                if (scatter) return corner;
+                int chase = table.nearestNode(pacRow, pacColumn);
+                int distance = table.distance(from, chase);
+                return distance >= 0 && distance <= 8 ? corner : chase;
+            }
+        }
+    }
+
+    private static Ghost findGhost(ArrayList<Ghost> ghosts, String color) {
+        for (int i = 0; i < ghosts.size(); i++) {
+            if (ghosts.get(i).getColor().equals(color)) return ghosts.get(i);
+        }
+        return null;
+    }
+
+    private static int directionIndex(char direction) {
+        switch (direction) {
+            case 'U': return 0;
+            case 'D': return 1;
+            case 'L': return 2;
+            default: return 3;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package engine;
+
+import model.Ghost;
+
+/**
+ * The original behaviour: keep going straight and pick a random direction only when blocked.
+ */
+public class RandomGhostAI implements GhostAI {
+
+    @Override
+    public char chooseDirection(GameWorld world, Ghost ghost) {
+        return ghost.getDirection();
+    }
+}
@@ -0,0 +1,106 @@
+package engine;
+
+import java.util.Random;
+import exceptions.GameException;
+
+/**
+ * Re-runs a recorded InputLog headlessly, as fast as the CPU allows, and checks the world's
+ * stateHash() at every recorded checkpoint and at the last tick.
+ * Usage: java engine.Replay session.pmr [maze.maze | maze.mzb]
+ */
+public class Replay {
+
+    private static final int TICKS_PER_MINUTE = 20 * 60;
+
+    public static class Result {
+        private long ticks;
+        private int checkpoints;
+        private long mismatchTick;
+        private long nanos;
+        private int score;
+
+        Result(long ticks, int checkpoints, long mismatchTick, long nanos, int score) {
+            this.ticks = ticks;
+            this.checkpoints = checkpoints;
+            this.mismatchTick = mismatchTick;
+            this.nanos = nanos;
+            this.score = score;
+        }
+
+        public boolean isMatched() { return mismatchTick < 0; }
+        /** First checkpoint tick (or the last tick) whose hash differed, or -1. */
+        public long getMismatchTick() { return mismatchTick; }
+        public long getTicks() { return ticks; }
+        public int getCheckpoints() { return checkpoints; }
+        public long getNanos() { return nanos; }
+        public int getScore() { return score; }
+    }
+
+    /** Replays on a fresh world with the ghost AI the log was recorded with. */
+    public static Result run(InputLog log, Maze maze) throws GameException {
+        if (maze.fingerprint() != log.getMazeFingerprint()) {
+            throw new GameException("Replay was recorded on a different maze", GameException.INVALID_STATE);
+        }
+        GameWorld world = new GameWorld(maze, log.getTileSize(), new Random(log.getSeed()));
+        world.setGhostAI(newGhostAI(log.getGhostAI(), world));
+        world.newGame(log.getSeed());
+        return run(log, world);
+    }
+
+    private static GhostAI newGhostAI(byte kind, GameWorld world) {
+        switch (kind) {
+            case InputLog.AI_FLOW_FIELD: return new FlowFieldGhostAI(new FlowField(world.getWallGrid(), false));
+            case InputLog.AI_RANDOM: return new RandomGhostAI();
+            default: return new PersonalityGhostAI();
+        }
+    }
+
+    /**
+     * Replays on a world the caller has already put in the recorded starting state,
+     * i.e. InputLog.start() was called on an identically configured world.
+     */
+    public static Result run(InputLog log, GameWorld world) {
+        long start = System.nanoTime();
+        InputLog.Reader input = log.reader();
+        int interval = log.getHashInterval();
+        int checkpoint = 0;
+        long mismatch = -1;
+
+        for (long tick = 1; tick <= log.getTicks(); tick++) {
+            world.step(input.next());
+            if (tick % interval == 0 && checkpoint < log.getHashCount()) {
+                if (world.stateHash() != log.getHash(checkpoint)) {
+                    mismatch = tick;
+                    break;
+                }
+                checkpoint++;
+            }
+        }
+        if (mismatch < 0 && (world.getTick() != log.getTicks() || checkpoint != log.getHashCount()
+                || (log.hasFinalHash() && world.stateHash() != log.getFinalHash()))) {
+            mismatch = world.getTick();
+        }
+        return new Result(world.getTick(), checkpoint, mismatch, System.nanoTime() - start, world.getScore());
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: java engine.Replay session.pmr [maze.maze | maze.mzb]");
+            return;
+        }
+        InputLog log = InputLog.load(args[0]);
+        Maze maze = GameWorld.DEFAULT_MAZE;
+        if (args.length > 1) maze = args[1].endsWith(".mzb") ? MazeCompiler.load(args[1]) : MazeCompiler.readText(args[1]);
+
+        Result result = run(log, maze);
+        System.out.println(String.format("%d ticks (%.1f min of play), %d input changes, %d checkpoints, %d bytes",
+            result.getTicks(), result.getTicks() / (double) TICKS_PER_MINUTE, log.getEventCount(), result.getCheckpoints(), log.getEncodedSize()));
+        System.out.println(String.format("replayed in %.2f ms (%.0f ticks/ms), score %d",
+            result.getNanos() / 1e6, result.getTicks() / (result.getNanos() / 1e6), result.getScore()));
+        if (!result.isMatched()) {
+            System.out.println("MISMATCH at tick " + result.getMismatchTick());
+            System.exit(1);
+        }
+        System.out.println(log.hasFinalHash() ? "OK" : "OK up to the last checkpoint (no final state recorded)");
+    }
+}
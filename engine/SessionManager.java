@@ -0,0 +1,308 @@
+package engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ToLongFunction;
+
+/**
+ * Runs many headless game sessions in one JVM on a few scheduler threads.
+ *
+ * A session lives on shard (id % shards) and only that shard's thread ever touches it:
+ * each tick the thread steps every session it owns, then sleeps until the next one, so
+ * there is no thread per session. add() and remove() only post to the shard's own
+ * lock-free queue, which the shard drains at the start of its next tick; shards share
+ * nothing while running. A shard that falls more than MAX_BEHIND_TICKS behind drops the
+ * backlog instead of bursting to catch up.
+ *
+ * Lateness is when a shard finished its pass minus when that tick was due, i.e. how late
+ * the last of its sessions got its tick; it includes the OS waking the thread late. Pass
+ * time is just the stepping, which is what adding sessions costs.
+ */
+public class SessionManager {
+
+    public static final long TICK_NANOS = 50_000_000L; // 20 ticks/sec
+    private static final int MAX_BEHIND_TICKS = 5;
+    private static final int SAMPLES = 4096;
+
+    /** Chooses a session's input every tick. Called on the session's shard thread. */
+    public interface Controller {
+        char nextInput(GameWorld world);
+
+        /** The game just ended; the session starts a new one right after. */
+        default void gameOver(Session session) {}
+    }
+
+    public static class Session {
+        private long id;
+        private GameWorld world;
+        private Controller controller;
+        private volatile boolean removed;
+        private int index = -1; // position in its shard's list, shard thread only
+
+        private volatile long ticks;
+        private volatile int games;
+        private volatile int lastScore;
+        private volatile RuntimeException error;
+
+        private Session(long id, GameWorld world, Controller controller) {
+            this.id = id;
+            this.world = world;
+            this.controller = controller;
+        }
+
+        public long getId() { return id; }
+        /** Only safe to read from the controller, or once the session is removed. */
+        public GameWorld getWorld() { return world; }
+        public long getTicks() { return ticks; }
+        public int getGames() { return games; }
+        public int getLastScore() { return lastScore; }
+        /** What stopped the session if it threw; it is removed at that point. */
+        public RuntimeException getError() { return error; }
+        public boolean isRemoved() { return removed; }
+
+        private void step() {
+            world.step(controller.nextInput(world));
+            ticks++;
+            if (world.isGameOver()) {
+                lastScore = world.getScore();
+                games++;
+                controller.gameOver(this);
+                world.newGame();
+            }
+        }
+    }
+
+    private Shard[] shards;
+    private long tickNanos;
+    private AtomicLong nextId = new AtomicLong();
+    private ConcurrentHashMap<Long, Session> sessions = new ConcurrentHashMap<>();
+
+    /** One shard per core at 20 ticks/sec. */
+    public SessionManager() {
+        this(Runtime.getRuntime().availableProcessors(), TICK_NANOS);
+    }
+
+    public SessionManager(int shardCount, long tickNanos) {
+        this.tickNanos = tickNanos;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) shards[i] = new Shard(i);
+    }
+
+    public int getShardCount() { return shards.length; }
+    public long getTickNanos() { return tickNanos; }
+    public int getSessionCount() { return sessions.size(); }
+    public Session get(long id) { return sessions.get(id); }
+
+    public void start() {
+        long start = System.nanoTime();
+        for (Shard shard : shards) shard.start(start);
+    }
+
+    /** Stops the scheduler threads; sessions keep their state and can be read afterwards. */
+    public void stop() {
+        for (Shard shard : shards) shard.running = false;
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.thread);
+            try {
+                shard.thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Adds a session; it gets its first tick on its shard's next tick. */
+    public Session add(GameWorld world, Controller controller) {
+        Session session = new Session(nextId.getAndIncrement(), world, controller);
+        sessions.put(session.id, session);
+        shardOf(session.id).changes.add(session);
+        return session;
+    }
+
+    /** Removes a session; it gets no tick after its shard's current one. False if unknown. */
+    public boolean remove(long id) {
+        Session session = sessions.remove(id);
+        if (session == null) return false;
+        session.removed = true;
+        shardOf(id).changes.add(session);
+        return true;
+    }
+
+    private Shard shardOf(long id) {
+        return shards[(int) (id % shards.length)];
+    }
+
+    /** Lateness at a percentile (0-100) over the recent ticks of all shards. */
+    public long getLatenessNanos(double percentile) {
+        return percentile(percentile, false);
+    }
+
+    /** Time a shard took to step its sessions, at a percentile over recent ticks. */
+    public long getPassNanos(double percentile) {
+        return percentile(percentile, true);
+    }
+
+    private long percentile(double percentile, boolean passes) {
+        ArrayList<long[]> all = new ArrayList<>();
+        int total = 0;
+        for (Shard shard : shards) {
+            long[] samples = shard.samples(passes);
+            all.add(samples);
+            total += samples.length;
+        }
+        if (total == 0) return 0;
+        long[] merged = new long[total];
+        int offset = 0;
+        for (long[] samples : all) {
+            System.arraycopy(samples, 0, merged, offset, samples.length);
+            offset += samples.length;
+        }
+        Arrays.sort(merged);
+        return merged[Math.min(total - 1, (int) (total * percentile / 100))];
+    }
+
+    /** Share of the shard threads' time spent stepping sessions since the last reset. */
+    public double getBusyFraction() {
+        long busy = 0;
+        long elapsed = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                busy += shard.busyNanos;
+                elapsed += System.nanoTime() - shard.statsSince;
+            }
+        }
+        return elapsed == 0 ? 0 : busy / (double) elapsed;
+    }
+
+    public long getTicks() { return sum(shard -> shard.ticks); }
+    /** Shard ticks that finished after the next one was due. */
+    public long getOverruns() { return sum(shard -> shard.overruns); }
+    public long getDroppedTicks() { return sum(shard -> shard.dropped); }
+    /** Sessions removed because their controller or world threw. */
+    public long getFailures() { return sum(shard -> shard.failures); }
+
+    private long sum(ToLongFunction<Shard> counter) {
+        long total = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                total += counter.applyAsLong(shard);
+            }
+        }
+        return total;
+    }
+
+    /** Clears timing statistics, e.g. after a warm-up. */
+    public void resetStats() {
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                shard.ticks = 0;
+                shard.overruns = 0;
+                shard.dropped = 0;
+                shard.busyNanos = 0;
+                shard.sampleCount = 0;
+                shard.statsSince = System.nanoTime();
+            }
+        }
+    }
+
+    /** One scheduler thread and the sessions it owns. */
+    private class Shard implements Runnable {
+        private int number;
+        private Thread thread;
+        private volatile boolean running;
+        private long start;
+        private ConcurrentLinkedQueue<Session> changes = new ConcurrentLinkedQueue<>();
+        private ArrayList<Session> owned = new ArrayList<>();
+
+        // statistics, guarded by this; only the reader ever waits for the lock
+        private long ticks;
+        private long overruns;
+        private long dropped;
+        private long failures;
+        private long busyNanos;
+        private long statsSince = System.nanoTime();
+        private long[] lateness = new long[SAMPLES];
+        private long[] passes = new long[SAMPLES];
+        private long sampleCount;
+
+        Shard(int number) {
+            this.number = number;
+        }
+
+        void start(long start) {
+            this.start = start;
+            running = true;
+            thread = new Thread(this, "session-shard-" + number);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void run() {
+            long tick = 1;
+            while (running) {
+                long due = start + tick * tickNanos;
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(this, wait);
+                    continue;
+                }
+
+                long begin = System.nanoTime();
+                applyChanges();
+                for (int i = 0; i < owned.size(); i++) {
+                    Session session = owned.get(i);
+                    try {
+                        session.step();
+                    } catch (RuntimeException e) {
+                        session.error = e;
+                        SessionManager.this.remove(session.id);
+                        synchronized (this) {
+                            failures++;
+                        }
+                    }
+                }
+                long end = System.nanoTime();
+
+                tick++;
+                long behind = (end - start) / tickNanos - tick;
+                long skipped = behind > MAX_BEHIND_TICKS ? behind : 0;
+                tick += skipped;
+                synchronized (this) {
+                    ticks++;
+                    busyNanos += end - begin;
+                    passes[(int) (sampleCount % SAMPLES)] = end - begin;
+                    lateness[(int) (sampleCount++ % SAMPLES)] = end - due;
+                    if (end - due > tickNanos) overruns++;
+                    dropped += skipped;
+                }
+            }
+        }
+
+        private void applyChanges() {
+            Session session;
+            while ((session = changes.poll()) != null) {
+                if (session.removed) {
+                    if (session.index < 0) continue;
+                    Session last = owned.remove(owned.size() - 1);
+                    if (last != session) {
+                        owned.set(session.index, last);
+                        last.index = session.index;
+                    }
+                    session.index = -1;
+                } else if (session.index < 0) {
+                    session.index = owned.size();
+                    owned.add(session);
+                }
+            }
+        }
+
+        synchronized long[] samples(boolean pass) {
+            return Arrays.copyOf(pass ? passes : lateness, (int) Math.min(sampleCount, SAMPLES));
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package engine;
+
+/**
+ * Receives GameWorld events so a renderer can update cached state incrementally.
+ * Called on the thread that steps the world.
+ */
+public interface WorldListener {
+    void pelletEaten(int row, int column);
+    void levelLoaded();
+}
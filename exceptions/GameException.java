@@ -8,6 +8,7 @@ public class GameException extends Exception {
     public static final int FILE_ERROR = 1;
     public static final int INVALID_STATE = 2;
     public static final int RESOURCE_ERROR = 3;
+    public static final int NETWORK_ERROR = 4;
     
     private int errorCode;
     
@@ -40,6 +41,7 @@ public class GameException extends Exception {
             case FILE_ERROR: return "Unable to read or write game files.";
             case INVALID_STATE: return "Invalid game state. Please restart.";
             case RESOURCE_ERROR: return "Failed to load game resources.";
+            case NETWORK_ERROR: return "Lost connection to the game server.";
             default: return getMessage();
         }
     }
@@ -5,6 +5,7 @@ package interfaces;
  */
 public interface Movable {
     void move();
+    void undoMove();
     void updateDirection(char direction);
     char getDirection();
     int getVelocityX();
@@ -0,0 +1,177 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Positions, velocities, directions and flags of many entities in parallel primitive
+ * arrays, one slot per entity, for swarms of thousands of actors. The bulk loops walk
+ * the arrays in slot order with no object per entity and simple bodies the JIT can
+ * unroll and vectorize; EntityView puts a slot behind Movable for code written against
+ * it. The game's own Player and Ghost keep their state in fields, which is faster for a
+ * handful of entities. Not thread-safe.
+ */
+public class EntityStore {
+
+    public static final int SCARED = 1;
+
+    int[] x;
+    int[] y;
+    int[] prevX;
+    int[] prevY;
+    int[] startX;
+    int[] startY;
+    int[] width;
+    int[] height;
+    int[] velocityX;
+    int[] velocityY;
+    char[] direction;
+    byte[] flags;
+    private int count;
+
+    public EntityStore(int capacity) {
+        capacity = Math.max(1, capacity);
+        x = new int[capacity];
+        y = new int[capacity];
+        prevX = new int[capacity];
+        prevY = new int[capacity];
+        startX = new int[capacity];
+        startY = new int[capacity];
+        width = new int[capacity];
+        height = new int[capacity];
+        velocityX = new int[capacity];
+        velocityY = new int[capacity];
+        direction = new char[capacity];
+        flags = new byte[capacity];
+    }
+
+    /** Adds an entity at its start position, not moving; returns its slot. Grows the arrays when full. */
+    public int add(int startX, int startY, int width, int height) {
+        if (count == x.length) grow(count * 2);
+        int slot = count++;
+        this.x[slot] = startX;
+        this.y[slot] = startY;
+        this.prevX[slot] = startX;
+        this.prevY[slot] = startY;
+        this.startX[slot] = startX;
+        this.startY[slot] = startY;
+        this.width[slot] = width;
+        this.height[slot] = height;
+        return slot;
+    }
+
+    private void grow(int capacity) {
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        prevX = Arrays.copyOf(prevX, capacity);
+        prevY = Arrays.copyOf(prevY, capacity);
+        startX = Arrays.copyOf(startX, capacity);
+        startY = Arrays.copyOf(startY, capacity);
+        width = Arrays.copyOf(width, capacity);
+        height = Arrays.copyOf(height, capacity);
+        velocityX = Arrays.copyOf(velocityX, capacity);
+        velocityY = Arrays.copyOf(velocityY, capacity);
+        direction = Arrays.copyOf(direction, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+    }
+
+    public int size() { return count; }
+
+    public int getX(int slot) { return x[slot]; }
+    public int getY(int slot) { return y[slot]; }
+    public int getWidth(int slot) { return width[slot]; }
+    public int getHeight(int slot) { return height[slot]; }
+    public int getVelocityX(int slot) { return velocityX[slot]; }
+    public int getVelocityY(int slot) { return velocityY[slot]; }
+    public char getDirection(int slot) { return direction[slot]; }
+    public boolean hasFlag(int slot, int flag) { return (flags[slot] & flag) != 0; }
+
+    /** Points the entity in direction ('U', 'D', 'L' or 'R') at speed pixels per tick. */
+    public void setDirection(int slot, char newDirection, int speed) {
+        direction[slot] = newDirection;
+        switch (newDirection) {
+            case 'U': velocityX[slot] = 0; velocityY[slot] = -speed; break;
+            case 'D': velocityX[slot] = 0; velocityY[slot] = speed; break;
+            case 'L': velocityX[slot] = -speed; velocityY[slot] = 0; break;
+            case 'R': velocityX[slot] = speed; velocityY[slot] = 0; break;
+        }
+    }
+
+    /** Turns the entity around, keeping its speed. */
+    public void reverse(int slot) {
+        switch (direction[slot]) {
+            case 'U': direction[slot] = 'D'; break;
+            case 'D': direction[slot] = 'U'; break;
+            case 'L': direction[slot] = 'R'; break;
+            case 'R': direction[slot] = 'L'; break;
+        }
+        velocityX[slot] = -velocityX[slot];
+        velocityY[slot] = -velocityY[slot];
+    }
+
+    public void setFlag(int slot, int flag, boolean on) {
+        flags[slot] = (byte) (on ? flags[slot] | flag : flags[slot] & ~flag);
+    }
+
+    /** Remembers every position for render interpolation (GameEntity.savePosition for all). */
+    public void savePositions() {
+        System.arraycopy(x, 0, prevX, 0, count);
+        System.arraycopy(y, 0, prevY, 0, count);
+    }
+
+    /** Moves every entity in [from, to) by its velocity. */
+    public void moveAll(int from, int to) {
+        int[] x = this.x, y = this.y, velocityX = this.velocityX, velocityY = this.velocityY;
+        for (int i = from; i < to; i++) {
+            x[i] += velocityX[i];
+            y[i] += velocityY[i];
+        }
+    }
+
+    /** Back to the start position, standing still, with no interpolation. */
+    public void resetPosition(int slot) {
+        x[slot] = startX[slot];
+        y[slot] = startY[slot];
+        prevX[slot] = startX[slot];
+        prevY[slot] = startY[slot];
+        velocityX[slot] = 0;
+        velocityY[slot] = 0;
+    }
+
+    public void move(int slot) {
+        x[slot] += velocityX[slot];
+        y[slot] += velocityY[slot];
+    }
+
+    public void undoMove(int slot) {
+        x[slot] -= velocityX[slot];
+        y[slot] -= velocityY[slot];
+    }
+
+    /** Whether the two entities' rectangles overlap. */
+    public boolean overlaps(int a, int b) {
+        return x[a] < x[b] + width[b] && x[a] + width[a] > x[b] && y[a] < y[b] + height[b] && y[a] + height[a] > y[b];
+    }
+
+    /** First slot in [from, to) that overlaps target, or -1. */
+    public int findOverlap(int target, int from, int to) {
+        int left = x[target], right = left + width[target], top = y[target], bottom = top + height[target];
+        int[] x = this.x, y = this.y, width = this.width, height = this.height;
+        for (int i = from; i < to; i++) {
+            if (x[i] < right & x[i] + width[i] > left & y[i] < bottom & y[i] + height[i] > top) return i;
+        }
+        return -1;
+    }
+
+    /** Number of slots in [from, to) that overlap target; branch-free, so it vectorizes. */
+    public int countOverlaps(int target, int from, int to) {
+        int left = x[target], right = left + width[target], top = y[target], bottom = top + height[target];
+        int[] x = this.x, y = this.y, width = this.width, height = this.height;
+        int hits = 0;
+        for (int i = from; i < to; i++) {
+            // each comparison as a 0/1 sign bit: (a - b) >>> 31 is 1 when a < b, for coordinates far from overflow
+            hits += ((x[i] - right) >>> 31) & ((left - x[i] - width[i]) >>> 31)
+                & ((y[i] - bottom) >>> 31) & ((top - y[i] - height[i]) >>> 31);
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,76 @@
+package model;
+
+import interfaces.Collidable;
+import interfaces.Movable;
+
+/**
+ * One slot of an EntityStore as a Movable and Collidable, so code written against those
+ * interfaces can drive a swarm actor. Every call reads the store's arrays; per-tick work
+ * over a whole swarm should use the store's bulk loops instead.
+ */
+public class EntityView implements Movable, Collidable {
+
+    private final EntityStore store;
+    private final int slot;
+    private final int speed;
+    private final int[] bounds = new int[4];
+
+    /** A view of the slot that moves speed pixels per tick when given a direction. */
+    public EntityView(EntityStore store, int slot, int speed) {
+        this.store = store;
+        this.slot = slot;
+        this.speed = speed;
+    }
+
+    public EntityStore getStore() { return store; }
+    public int getSlot() { return slot; }
+    public int getX() { return store.x[slot]; }
+    public int getY() { return store.y[slot]; }
+    public int getWidth() { return store.width[slot]; }
+    public int getHeight() { return store.height[slot]; }
+
+    @Override public char getDirection() { return store.direction[slot]; }
+    @Override public int getVelocityX() { return store.velocityX[slot]; }
+    @Override public int getVelocityY() { return store.velocityY[slot]; }
+
+    @Override
+    public void move() {
+        store.move(slot);
+    }
+
+    @Override
+    public void undoMove() {
+        store.undoMove(slot);
+    }
+
+    @Override
+    public void updateDirection(char direction) {
+        store.setDirection(slot, direction, speed);
+    }
+
+    /** Remembers the position at the start of a tick, like GameEntity.savePosition. */
+    public void savePosition() {
+        store.prevX[slot] = store.x[slot];
+        store.prevY[slot] = store.y[slot];
+    }
+
+    @Override
+    public boolean collidesWith(Collidable other) {
+        if (other instanceof EntityView && ((EntityView) other).store == store) {
+            return store.overlaps(slot, ((EntityView) other).slot);
+        }
+        int[] b = other.getBounds();
+        int x = getX(), y = getY();
+        return x < b[0] + b[2] && x + getWidth() > b[0] && y < b[1] + b[3] && y + getHeight() > b[1];
+    }
+
+    /** Returns {x, y, width, height}. The array is reused between calls; copy it to keep it. */
+    @Override
+    public int[] getBounds() {
+        bounds[0] = getX();
+        bounds[1] = getY();
+        bounds[2] = getWidth();
+        bounds[3] = getHeight();
+        return bounds;
+    }
+}
@@ -16,6 +16,9 @@ public abstract class GameEntity implements Collidable {
     private Image image;
     private int startX;
     private int startY;
+    private int prevX;
+    private int prevY;
+    private final int[] bounds = new int[4];
     
     public GameEntity(Image image, int x, int y, int width, int height) {
         this.image = image;
@@ -25,6 +28,8 @@ public abstract class GameEntity implements Collidable {
         this.height = height;
         this.startX = x;
         this.startY = y;
+        this.prevX = x;
+        this.prevY = y;
     }
     
     public int getX() { return x; }
@@ -46,11 +51,42 @@ public abstract class GameEntity implements Collidable {
     public void reset() {
         this.x = this.startX;
         this.y = this.startY;
+        this.prevX = this.startX;
+        this.prevY = this.startY;
+    }
+    
+    /** Remembers the position at the start of a tick, for render interpolation. */
+    public void savePosition() {
+        this.prevX = this.x;
+        this.prevY = this.y;
+    }
+    
+    /** Position between the last two ticks; jumps further than one tile (resets) are not blended. */
+    public int getRenderX(double alpha) {
+        if (Math.abs(x - prevX) > width) return x;
+        return prevX + (int) Math.round((x - prevX) * alpha);
+    }
+    
+    public int getRenderY(double alpha) {
+        if (Math.abs(y - prevY) > height) return y;
+        return prevY + (int) Math.round((y - prevY) * alpha);
     }
     
     public void draw(Graphics g) {
-        if (image != null) {
-            g.drawImage(image, x, y, width, height, null);
+        drawAt(g, x, y);
+    }
+    
+    public void draw(Graphics g, double alpha) {
+        drawAt(g, getRenderX(alpha), getRenderY(alpha));
+    }
+    
+    /** An image already at the entity's size (see render.SpriteAtlas) is copied without scaling. */
+    private void drawAt(Graphics g, int drawX, int drawY) {
+        if (image == null) return;
+        if (image.getWidth(null) == width && image.getHeight(null) == height) {
+            g.drawImage(image, drawX, drawY, null);
+        } else {
+            g.drawImage(image, drawX, drawY, width, height, null);
         }
     }
     
@@ -66,8 +102,13 @@ public abstract class GameEntity implements Collidable {
         return false;
     }
     
+    /** Returns {x, y, width, height}. The array is reused between calls; copy it to keep it. */
     @Override
     public int[] getBounds() {
-        return new int[]{x, y, width, height};
+        bounds[0] = x;
+        bounds[1] = y;
+        bounds[2] = width;
+        bounds[3] = height;
+        return bounds;
     }
 }
@@ -34,6 +34,9 @@ public class Ghost extends GameEntity implements Movable {
     @Override public int getVelocityX() { return velocityX; }
     @Override public int getVelocityY() { return velocityY; }
     
+    public void setVelocityX(int velocityX) { this.velocityX = velocityX; }
+    public void setVelocityY(int velocityY) { this.velocityY = velocityY; }
+
     public void setScared(boolean scared) {
         this.isScared = scared;
         if (scared && scaredImage != null) {
@@ -43,6 +46,11 @@ public class Ghost extends GameEntity implements Movable {
         }
     }
     
+    public void setNormalImage(Image normalImage) {
+        this.normalImage = normalImage;
+        if (!isScared) setImage(normalImage);
+    }
+    
     public void setScaredImage(Image scaredImage) {
         this.scaredImage = scaredImage;
     }
@@ -83,6 +91,7 @@ public class Ghost extends GameEntity implements Movable {
         }
     }
     
+    @Override
     public void undoMove() {
         setX(getX() - velocityX);
         setY(getY() - velocityY);
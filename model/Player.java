@@ -90,6 +90,7 @@ public class Player extends GameEntity implements Movable {
         return lives > 0;
     }
     
+    @Override
     public void undoMove() {
         setX(getX() - velocityX);
         setY(getY() - velocityY);
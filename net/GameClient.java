@@ -0,0 +1,230 @@
+package net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import engine.GameWorld;
+import exceptions.GameException;
+import model.GameEntity;
+import model.Ghost;
+
+/**
+ * Connection to a GameServer, driven from the caller's game loop with update() once per
+ * tick; the socket is non-blocking, so update() never waits for the network.
+ *
+ * The local GameWorld is a mirror: each update restores the latest server state into it,
+ * then re-applies every input the server has not acknowledged yet to the player's own
+ * Pac-Man or ghost with the world's own movement rule (GameWorld.steer). The player sees
+ * their move at once instead of a round trip later; if the server disagrees (a ghost got
+ * in the way, a life was lost) the next state simply wins. Other entities are shown where
+ * the server last put them.
+ */
+public class GameClient {
+
+    private static final int WINDOW = 64; // unacknowledged inputs kept, power of two
+
+    private SocketChannel channel;
+    private ByteBuffer in = ByteBuffer.allocate(Protocol.MAX_FRAME + 2);
+    private ByteBuffer out = ByteBuffer.allocate(WINDOW * Protocol.INPUT_BYTES);
+
+    private byte role = -1;
+    private int ghost;
+    private int mazeFingerprint;
+    private int tileSize;
+    private long[] state;
+    private boolean hasState;
+    private boolean checked;
+    private int ack;
+
+    private int sequence;
+    private char[] inputs = new char[WINDOW];
+    private long[] sentAt = new long[WINDOW];
+    private int[] predictedX = new int[WINDOW];
+    private int[] predictedY = new int[WINDOW];
+    private int[] renderX;
+    private int[] renderY;
+
+    private long bytesReceived;
+    private long bytesSent;
+    private long states;
+    private long corrections;
+    private long ackNanos;
+    private long acks;
+
+    private GameClient(SocketChannel channel) {
+        this.channel = channel;
+    }
+
+    /** Connects and asks for a role (Protocol.ROLE_*); the server may seat us elsewhere. */
+    public static GameClient connect(String host, int port, byte role) throws GameException {
+        try {
+            SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.configureBlocking(false);
+            GameClient client = new GameClient(channel);
+            client.out.put(Protocol.JOIN).put(role);
+            client.flush();
+            return client;
+        } catch (IOException e) {
+            throw new GameException("Cannot connect to " + host + ":" + port + ": " + e.getMessage(), GameException.NETWORK_ERROR, e);
+        }
+    }
+
+    /** Role the server gave us, or -1 until its welcome arrives. */
+    public byte getRole() { return role; }
+    /** Which ghost we hold when getRole() is ROLE_GHOST. */
+    public int getGhost() { return ghost; }
+    public boolean hasState() { return hasState; }
+    public long getBytesReceived() { return bytesReceived; }
+    public long getBytesSent() { return bytesSent; }
+    public long getStates() { return states; }
+    /** Times the server put us somewhere other than where we had predicted. */
+    public long getCorrections() { return corrections; }
+    /** Average time from sending an input to the server saying it used it. */
+    public double getAverageAckMillis() { return acks == 0 ? 0 : ackNanos / 1e6 / acks; }
+
+    /**
+     * Sends this tick's input, takes in whatever the server has sent, and leaves the world
+     * showing the server's state plus our predicted move.
+     */
+    public void update(GameWorld world, char input) throws GameException {
+        try {
+            sequence++;
+            inputs[sequence & (WINDOW - 1)] = input;
+            sentAt[sequence & (WINDOW - 1)] = System.nanoTime();
+            if (out.remaining() < Protocol.INPUT_BYTES) {
+                throw new GameException("Server stopped reading input", GameException.NETWORK_ERROR);
+            }
+            out.put(Protocol.INPUT).putInt(sequence).put((byte) Protocol.directionIndex(input));
+            flush();
+            boolean received = poll();
+            if (!hasState) return;
+            if (!checked) check(world);
+
+            remember(world);
+            world.restore(state);
+            GameEntity own = ownEntity(world);
+            if (own != null && !world.isGameOver()) {
+                if (received && sequence - ack < WINDOW && ack > 0
+                    && (own.getX() != predictedX[ack & (WINDOW - 1)] || own.getY() != predictedY[ack & (WINDOW - 1)])) {
+                    corrections++;
+                }
+                predict(world, own);
+            }
+            blend(world);
+        } catch (IOException e) {
+            throw new GameException("Connection lost: " + e.getMessage(), GameException.NETWORK_ERROR, e);
+        }
+    }
+
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void flush() throws IOException {
+        out.flip();
+        bytesSent += channel.write(out);
+        out.compact();
+    }
+
+    /** Reads every complete frame available; returns true if a new state arrived. */
+    private boolean poll() throws IOException {
+        int n = channel.read(in);
+        if (n < 0) throw new IOException("server closed the connection");
+        bytesReceived += n;
+        in.flip();
+        boolean received = false;
+        while (in.remaining() >= 2) {
+            int length = in.getShort(in.position()) & 0xFFFF;
+            if (in.remaining() < 2 + length) break;
+            in.getShort();
+            int end = in.position() + length;
+            byte type = in.get();
+            if (type == Protocol.WELCOME) {
+                role = in.get();
+                ghost = in.get();
+                mazeFingerprint = in.getInt();
+                tileSize = in.getShort();
+                state = new long[in.getShort() & 0xFFFF];
+            } else if (state != null && (type == Protocol.FULL || type == Protocol.DELTA)) {
+                int applied = in.getInt();
+                if (type == Protocol.FULL) Arrays.fill(state, 0);
+                Protocol.decodeState(in, state);
+                if (applied > ack && sequence - applied < WINDOW) {
+                    ackNanos += System.nanoTime() - sentAt[applied & (WINDOW - 1)];
+                    acks++;
+                }
+                ack = applied;
+                hasState = true;
+                received = true;
+                states++;
+            }
+            in.position(end);
+        }
+        in.compact();
+        return received;
+    }
+
+    private void check(GameWorld world) throws GameException {
+        if (world.getMaze().fingerprint() != mazeFingerprint || world.getTileSize() != tileSize
+            || world.snapshotLength() != state.length) {
+            throw new GameException("The server is playing a different maze", GameException.INVALID_STATE);
+        }
+        renderX = new int[1 + world.getGhosts().size()];
+        renderY = new int[renderX.length];
+        checked = true;
+    }
+
+    private GameEntity ownEntity(GameWorld world) {
+        if (role == Protocol.ROLE_PACMAN) return world.getPacman();
+        if (role == Protocol.ROLE_GHOST) return world.getGhosts().get(ghost);
+        return null;
+    }
+
+    /** Replays the inputs the server has not used yet, recording where each one puts us. */
+    private void predict(GameWorld world, GameEntity own) {
+        int from = Math.max(ack + 1, sequence - WINDOW + 1);
+        for (int s = from; s <= sequence; s++) {
+            char input = inputs[s & (WINDOW - 1)];
+            if (own instanceof Ghost) GameWorld.steer((Ghost) own, input, world.getWallGrid());
+            else GameWorld.steer(world.getPacman(), input, world.getWallGrid());
+            predictedX[s & (WINDOW - 1)] = own.getX();
+            predictedY[s & (WINDOW - 1)] = own.getY();
+        }
+    }
+
+    /** Positions as last drawn, so the renderer can interpolate from them to the new ones. */
+    private void remember(GameWorld world) {
+        renderX[0] = world.getPacman().getX();
+        renderY[0] = world.getPacman().getY();
+        ArrayList<Ghost> ghosts = world.getGhosts();
+        for (int i = 0; i < ghosts.size(); i++) {
+            renderX[i + 1] = ghosts.get(i).getX();
+            renderY[i + 1] = ghosts.get(i).getY();
+        }
+    }
+
+    private void blend(GameWorld world) {
+        blend(world.getPacman(), 0);
+        ArrayList<Ghost> ghosts = world.getGhosts();
+        for (int i = 0; i < ghosts.size(); i++) blend(ghosts.get(i), i + 1);
+    }
+
+    private void blend(GameEntity entity, int index) {
+        int x = entity.getX();
+        int y = entity.getY();
+        entity.setX(renderX[index]);
+        entity.setY(renderY[index]);
+        entity.savePosition();
+        entity.setX(x);
+        entity.setY(y);
+    }
+}
@@ -0,0 +1,453 @@
+package net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+
+import engine.GameWorld;
+import engine.Maze;
+import engine.MazeCompiler;
+import exceptions.GameException;
+
+/**
+ * Authoritative multiplayer server. Every connection joins a room: one GameWorld with a
+ * Pac-Man slot and one slot per ghost (ghosts nobody holds are played by the GhostAI);
+ * when no room has the wanted slot free a new room opens. Clients only send inputs, the
+ * server runs every room at 20 ticks/sec and sends each member the state change.
+ *
+ * One thread does everything with a non-blocking Selector: it waits for socket events
+ * until the next tick is due, then steps all rooms. A room's delta is encoded once and
+ * copied to each member behind its own ack. Inputs are queued per client and one is used
+ * per tick, so a client that steps its prediction once per input lands where the server
+ * does. A client whose unsent output passes MAX_BACKLOG bytes is dropped.
+ *
+ * Run headless with: java net.GameServer [port] [maze.maze | maze.mzb]
+ */
+public class GameServer implements Runnable {
+
+    public static final long TICK_NANOS = 50_000_000L; // 20 ticks/sec
+    public static final int GAME_OVER_TICKS = 60;     // pause before a room restarts
+    private static final int MAX_BACKLOG = 32 * 1024;
+    private static final int INPUT_QUEUE = 8;          // power of two
+    private static final int TICK_SAMPLES = 4096;
+
+    private Maze maze;
+    private int tileSize;
+    private int snapshotWords;
+    private Selector selector;
+    private ServerSocketChannel listener;
+    private Thread thread;
+    private volatile boolean running;
+
+    private ArrayList<Room> rooms = new ArrayList<>();
+    private ByteBuffer body;
+
+    private volatile long ticks;
+    private volatile long bytesSent;
+    private volatile long bytesReceived;
+    private volatile int connections;
+    private volatile long dropped;
+    private long[] tickNanos = new long[TICK_SAMPLES];
+    private volatile long maxTickNanos;
+
+    /** Binds to localhost; port 0 picks a free port (see getPort()). */
+    public GameServer(Maze maze, int tileSize, int port) throws GameException {
+        this.maze = maze;
+        this.tileSize = tileSize;
+        this.snapshotWords = new GameWorld(maze, tileSize, new Random()).snapshotLength();
+        if (Protocol.maxStateFrame(snapshotWords) > Protocol.MAX_FRAME) {
+            throw new GameException("Maze is too large for network play: " + snapshotWords + " state words",
+                GameException.INVALID_STATE);
+        }
+        body = ByteBuffer.allocate(Protocol.maxStateFrame(snapshotWords));
+        try {
+            selector = Selector.open();
+            listener = ServerSocketChannel.open();
+            listener.bind(new InetSocketAddress("localhost", port));
+            listener.configureBlocking(false);
+            listener.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new GameException("Cannot listen on port " + port + ": " + e.getMessage(), GameException.NETWORK_ERROR, e);
+        }
+    }
+
+    public int getPort() { return listener.socket().getLocalPort(); }
+    public long getTicks() { return ticks; }
+    public long getBytesSent() { return bytesSent; }
+    public long getBytesReceived() { return bytesReceived; }
+    public int getConnections() { return connections; }
+    /** Clients disconnected for falling too far behind. */
+    public long getDropped() { return dropped; }
+    public long getMaxTickNanos() { return maxTickNanos; }
+
+    public synchronized int getRoomCount() { return rooms.size(); }
+
+    /** Tick time at the given percentile (0-100) over the last TICK_SAMPLES ticks. */
+    public synchronized long getTickNanos(double percentile) {
+        int count = (int) Math.min(ticks, TICK_SAMPLES);
+        if (count == 0) return 0;
+        long[] sorted = Arrays.copyOf(tickNanos, count);
+        Arrays.sort(sorted);
+        return sorted[Math.min(count - 1, (int) (count * percentile / 100))];
+    }
+
+    public void start() {
+        running = true;
+        thread = new Thread(this, "game-server");
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        selector.wakeup();
+        try {
+            if (thread != null) thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        long nextTick = System.nanoTime() + TICK_NANOS;
+        try {
+            while (running) {
+                long wait = nextTick - System.nanoTime();
+                if (wait > 0) {
+                    selector.select(Math.max(1, wait / 1_000_000));
+                } else {
+                    selector.selectNow();
+                }
+                handleEvents();
+                if (System.nanoTime() - nextTick >= 0) {
+                    tick();
+                    nextTick += TICK_NANOS;
+                    // after a long stall skip the missed ticks rather than burst through them
+                    if (System.nanoTime() - nextTick > 5 * TICK_NANOS) nextTick = System.nanoTime() + TICK_NANOS;
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Note: game server stopped: " + e.getMessage());
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void handleEvents() throws IOException {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (!key.isValid()) continue;
+            if (key.isAcceptable()) {
+                accept();
+                continue;
+            }
+            Client client = (Client) key.attachment();
+            try {
+                if (key.isReadable()) read(client);
+                if (key.isValid() && key.isWritable()) flush(client);
+            } catch (IOException e) {
+                disconnect(client);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = listener.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Client client = new Client(channel);
+            client.key = channel.register(selector, SelectionKey.OP_READ, client);
+            connections++;
+        }
+    }
+
+    private void read(Client client) throws IOException {
+        ByteBuffer in = client.pending;
+        int n = client.channel.read(in);
+        if (n < 0) {
+            disconnect(client);
+            return;
+        }
+        bytesReceived += n;
+        in.flip();
+        while (in.hasRemaining()) {
+            byte type = in.get(in.position());
+            if (type == Protocol.JOIN && in.remaining() >= Protocol.JOIN_BYTES) {
+                in.get();
+                if (client.room == null) join(client, in.get());
+                else in.get();
+            } else if (type == Protocol.INPUT && in.remaining() >= Protocol.INPUT_BYTES) {
+                in.get();
+                client.queueInput(in.getInt(), Protocol.DIRECTIONS[in.get() & 3]);
+            } else if (type != Protocol.JOIN && type != Protocol.INPUT) {
+                throw new IOException("Unknown message " + type);
+            } else {
+                break;
+            }
+        }
+        in.compact();
+    }
+
+    private synchronized void join(Client client, byte wanted) {
+        for (Room room : rooms) {
+            if (room.seat(client, wanted)) return;
+        }
+        Room room = new Room(new GameWorld(maze, tileSize, new Random()));
+        rooms.add(room);
+        if (!room.seat(client, wanted)) room.seat(client, Protocol.ROLE_SPECTATOR);
+    }
+
+    private synchronized void disconnect(Client client) {
+        if (client.key.isValid()) {
+            client.key.cancel();
+            connections--;
+        }
+        try {
+            client.channel.close();
+        } catch (IOException ignored) {
+        }
+        Room room = client.room;
+        if (room == null) return;
+        room.leave(client);
+        if (room.members.isEmpty()) rooms.remove(room);
+    }
+
+    private void tick() {
+        long start = System.nanoTime();
+        Room[] current;
+        synchronized (this) {
+            current = rooms.toArray(new Room[0]);
+        }
+        for (Room room : current) room.step();
+        for (Room room : current) room.broadcast();
+
+        long elapsed = System.nanoTime() - start;
+        synchronized (this) {
+            tickNanos[(int) (ticks % TICK_SAMPLES)] = elapsed;
+            ticks++;
+        }
+        if (elapsed > maxTickNanos) maxTickNanos = elapsed;
+    }
+
+    /** Queues a frame (header plus optional body) and writes what the socket takes; false if the client was dropped. */
+    private boolean send(Client client, ByteBuffer header, ByteBuffer body) {
+        int size = header.remaining() + (body == null ? 0 : body.remaining());
+        if (client.out.remaining() < size || client.out.position() > MAX_BACKLOG) {
+            dropped++;
+            disconnect(client);
+            return false;
+        }
+        client.out.put(header);
+        if (body != null) client.out.put(body);
+        try {
+            flush(client);
+            return true;
+        } catch (IOException e) {
+            disconnect(client);
+            return false;
+        }
+    }
+
+    private void flush(Client client) throws IOException {
+        if (!client.key.isValid()) return;
+        client.out.flip();
+        bytesSent += client.channel.write(client.out);
+        boolean backlog = client.out.hasRemaining();
+        client.out.compact();
+        client.key.interestOps(backlog ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            try {
+                key.channel().close();
+            } catch (IOException ignored) {
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /** One connection: its read remainder, output backlog and input queue. */
+    private class Client {
+        private SocketChannel channel;
+        private SelectionKey key;
+        private ByteBuffer pending = ByteBuffer.allocate(256);
+        private ByteBuffer out = ByteBuffer.allocate(MAX_BACKLOG + Protocol.maxStateFrame(snapshotWords));
+        private ByteBuffer header = ByteBuffer.allocate(Protocol.STATE_HEADER_BYTES);
+        private Room room;
+        private byte role;
+        private int ghost;
+        private boolean needsFull = true;
+
+        private int[] sequences = new int[INPUT_QUEUE];
+        private char[] inputs = new char[INPUT_QUEUE];
+        private int head;
+        private int size;
+        private char input = 'R';
+        private int ack;
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        /** Keeps the newest INPUT_QUEUE inputs; a client running ahead loses its oldest. */
+        void queueInput(int sequence, char direction) {
+            if (size == INPUT_QUEUE) {
+                head = (head + 1) & (INPUT_QUEUE - 1);
+                size--;
+            }
+            int slot = (head + size) & (INPUT_QUEUE - 1);
+            sequences[slot] = sequence;
+            inputs[slot] = direction;
+            size++;
+        }
+
+        /** The input for this tick; the last one is held while the queue is empty. */
+        char nextInput() {
+            if (size > 0) {
+                input = inputs[head];
+                ack = sequences[head];
+                head = (head + 1) & (INPUT_QUEUE - 1);
+                size--;
+            }
+            return input;
+        }
+    }
+
+    /** One game: a world, who holds which slot, and the state last sent. */
+    private class Room {
+        private GameWorld world;
+        private Client pacman;
+        private Client[] ghosts;
+        private ArrayList<Client> members = new ArrayList<>();
+        private long[] sent;
+        private long[] current;
+        private int gameOverTicks;
+
+        Room(GameWorld world) {
+            this.world = world;
+            this.ghosts = new Client[world.getGhosts().size()];
+            this.sent = new long[world.snapshotLength()];
+            this.current = new long[sent.length];
+        }
+
+        boolean seat(Client client, byte wanted) {
+            byte role = Protocol.ROLE_SPECTATOR;
+            int ghost = 0;
+            if ((wanted == Protocol.ROLE_PACMAN || wanted == Protocol.ROLE_ANY) && pacman == null) {
+                role = Protocol.ROLE_PACMAN;
+                pacman = client;
+            } else if (wanted == Protocol.ROLE_GHOST || wanted == Protocol.ROLE_ANY) {
+                ghost = freeGhost();
+                if (ghost < 0) return false;
+                role = Protocol.ROLE_GHOST;
+                ghosts[ghost] = client;
+                world.setGhostInput(ghost, world.getGhosts().get(ghost).getDirection());
+            } else if (wanted == Protocol.ROLE_PACMAN) {
+                return false;
+            }
+            client.room = this;
+            client.role = role;
+            client.ghost = Math.max(ghost, 0);
+            client.input = role == Protocol.ROLE_GHOST ? world.getGhosts().get(ghost).getDirection() : world.getNextDirection();
+            members.add(client);
+
+            ByteBuffer welcome = ByteBuffer.allocate(13);
+            welcome.putShort((short) 11).put(Protocol.WELCOME).put(role).put((byte) client.ghost)
+                .putInt(world.getMaze().fingerprint()).putShort((short) tileSize).putShort((short) sent.length);
+            welcome.flip();
+            send(client, welcome, null);
+            return true;
+        }
+
+        private int freeGhost() {
+            for (int i = 0; i < ghosts.length; i++) {
+                if (ghosts[i] == null) return i;
+            }
+            return -1;
+        }
+
+        void leave(Client client) {
+            members.remove(client);
+            if (pacman == client) pacman = null;
+            for (int i = 0; i < ghosts.length; i++) {
+                if (ghosts[i] == client) {
+                    ghosts[i] = null;
+                    world.releaseGhost(i);
+                }
+            }
+        }
+
+        void step() {
+            if (world.isGameOver()) {
+                if (++gameOverTicks >= GAME_OVER_TICKS) {
+                    gameOverTicks = 0;
+                    world.newGame();
+                }
+                return;
+            }
+            for (int i = 0; i < ghosts.length; i++) {
+                if (ghosts[i] != null) world.setGhostInput(i, ghosts[i].nextInput());
+            }
+            world.step(pacman != null ? pacman.nextInput() : world.getNextDirection());
+        }
+
+        void broadcast() {
+            world.snapshot(current);
+            body.clear();
+            Protocol.encodeState(sent, current, body);
+            body.flip();
+            ByteBuffer full = null;
+            for (int i = 0; i < members.size(); i++) {
+                Client client = members.get(i);
+                ByteBuffer state = body;
+                byte type = Protocol.DELTA;
+                if (client.needsFull) {
+                    if (full == null) {
+                        full = ByteBuffer.allocate(body.capacity());
+                        Protocol.encodeState(null, current, full);
+                        full.flip();
+                    }
+                    state = full;
+                    type = Protocol.FULL;
+                    client.needsFull = false;
+                }
+                client.header.clear();
+                client.header.putShort((short) (5 + state.remaining())).put(type).putInt(client.ack).flip();
+                if (!send(client, client.header, state.duplicate())) i--;
+            }
+            long[] swap = sent;
+            sent = current;
+            current = swap;
+        }
+    }
+
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Protocol.DEFAULT_PORT;
+        try {
+            Maze maze = GameWorld.DEFAULT_MAZE;
+            if (args.length > 1) maze = args[1].endsWith(".mzb") ? MazeCompiler.load(args[1]) : MazeCompiler.readText(args[1]);
+            GameServer server = new GameServer(maze, GameWorld.DEFAULT_TILE_SIZE, port);
+            server.start();
+            System.out.println("Pac-Man server on localhost:" + server.getPort());
+        } catch (GameException e) {
+            System.out.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package net;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Wire format shared by GameServer and GameClient (big-endian, over TCP).
+ *
+ * Client to server, fixed size: JOIN (byte type, byte wanted role) once, then one
+ * INPUT (byte type, int sequence, byte direction index) per client tick.
+ *
+ * Server to client, each frame a short length then a byte type:
+ * WELCOME (byte role, byte ghost index, int maze fingerprint, short tile size,
+ * short snapshot words) once, then one FULL or DELTA per server tick (int last input
+ * sequence applied for this client, then the state). State is the world's snapshot()
+ * words: a count of changed words, and for each the gap since the previous changed index
+ * and the zigzag difference from the old value, both varints. FULL is the same against an
+ * all-zero state. Most ticks change only the tick counter and a few positions, about two
+ * bytes per changed word.
+ */
+public final class Protocol {
+
+    public static final int DEFAULT_PORT = 7777;
+
+    public static final byte JOIN = 1;
+    public static final byte INPUT = 2;
+    public static final int JOIN_BYTES = 2;
+    public static final int INPUT_BYTES = 6;
+
+    public static final byte WELCOME = 1;
+    public static final byte FULL = 2;
+    public static final byte DELTA = 3;
+
+    public static final byte ROLE_ANY = 0;
+    public static final byte ROLE_PACMAN = 1;
+    public static final byte ROLE_GHOST = 2;
+    public static final byte ROLE_SPECTATOR = 3;
+
+    public static final int MAX_FRAME = 0xFFFF;
+    /** Frame header (length, type, ack) before the state words. */
+    public static final int STATE_HEADER_BYTES = 7;
+    /** Largest encoding of one word: a 5-byte index gap and a 10-byte value. */
+    public static final int MAX_WORD_BYTES = 15;
+
+    public static final char[] DIRECTIONS = {'U', 'D', 'L', 'R'};
+
+    private Protocol() {}
+
+    public static int directionIndex(char direction) {
+        switch (direction) {
+            case 'U': return 0;
+            case 'D': return 1;
+            case 'L': return 2;
+            default: return 3;
+        }
+    }
+
+    /** Worst-case STATE frame for a snapshot of this many words. */
+    public static int maxStateFrame(int words) {
+        return STATE_HEADER_BYTES + 5 + words * MAX_WORD_BYTES;
+    }
+
+    /**
+     * Writes the words of current that differ from previous; previous may be null for
+     * a full state. Returns the number of words written.
+     */
+    public static int encodeState(long[] previous, long[] current, ByteBuffer out) {
+        int changed = 0;
+        for (int i = 0; i < current.length; i++) {
+            if (previous == null ? current[i] != 0 : current[i] != previous[i]) changed++;
+        }
+        putVarint(out, changed);
+        int last = -1;
+        for (int i = 0; i < current.length; i++) {
+            long old = previous == null ? 0 : previous[i];
+            if (current[i] == old) continue;
+            putVarint(out, i - last - 1);
+            putVarint(out, zigzag(current[i] - old));
+            last = i;
+        }
+        return changed;
+    }
+
+    /** Applies what encodeState() wrote to the state in place. */
+    public static void decodeState(ByteBuffer in, long[] state) {
+        int changed = (int) getVarint(in);
+        int index = -1;
+        for (int n = 0; n < changed; n++) {
+            index += (int) getVarint(in) + 1;
+            long difference = getVarint(in);
+            state[index] += (difference >>> 1) ^ -(difference & 1);
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static void putVarint(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static long getVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package render;
+
+/**
+ * Window onto the board, in board pixels. Follows a point (Pac-Man) and stays inside
+ * the board; when the viewport is larger than the board it stays at the origin.
+ */
+public class Camera {
+
+    private int boardWidth;
+    private int boardHeight;
+    private int viewWidth;
+    private int viewHeight;
+    private int x;
+    private int y;
+
+    public Camera(int boardWidth, int boardHeight) {
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+        this.viewWidth = boardWidth;
+        this.viewHeight = boardHeight;
+    }
+
+    public int getX() { return x; }
+    public int getY() { return y; }
+    public int getViewWidth() { return viewWidth; }
+    public int getViewHeight() { return viewHeight; }
+
+    public void setViewport(int width, int height) {
+        viewWidth = Math.max(1, width);
+        viewHeight = Math.max(1, height);
+        centerOn(x + viewWidth / 2, y + viewHeight / 2);
+    }
+
+    public void centerOn(int centerX, int centerY) {
+        x = clamp(centerX - viewWidth / 2, boardWidth - viewWidth);
+        y = clamp(centerY - viewHeight / 2, boardHeight - viewHeight);
+    }
+
+    public boolean isVisible(int left, int top, int width, int height) {
+        return left < x + viewWidth && left + width > x && top < y + viewHeight && top + height > y;
+    }
+
+    private static int clamp(int value, int max) {
+        return Math.max(0, Math.min(value, Math.max(0, max)));
+    }
+}
@@ -0,0 +1,133 @@
+package render;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import engine.GameWorld;
+import engine.PelletBoard;
+import model.Food;
+import model.Wall;
+import util.CollisionGrid;
+
+/**
+ * Walls and pellets pre-rendered in square chunks of CHUNK_TILES x CHUNK_TILES tiles.
+ * Only chunks that come into view are built; the least recently drawn ones are evicted
+ * once the cache is full, and their images are reused for the next chunk built.
+ */
+public class ChunkCache {
+
+    public static final int CHUNK_TILES = 16;
+
+    private GameWorld world;
+    private Wall wallTile;
+    private int tileSize;
+    private int chunkPixels;
+    private int chunkRows;
+    private int chunkColumns;
+    private int capacity = 16;
+    private long builds;
+
+    private ArrayList<BufferedImage> spare = new ArrayList<>();
+    private LinkedHashMap<Integer, BufferedImage> chunks = new LinkedHashMap<Integer, BufferedImage>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, BufferedImage> eldest) {
+            if (size() <= capacity) return false;
+            spare.add(eldest.getValue());
+            return true;
+        }
+    };
+
+    public ChunkCache(GameWorld world, Wall wallTile) {
+        this.world = world;
+        this.wallTile = wallTile;
+        this.tileSize = world.getTileSize();
+        this.chunkPixels = CHUNK_TILES * tileSize;
+        this.chunkRows = (world.getRowCount() + CHUNK_TILES - 1) / CHUNK_TILES;
+        this.chunkColumns = (world.getColumnCount() + CHUNK_TILES - 1) / CHUNK_TILES;
+    }
+
+    public int getChunkPixels() { return chunkPixels; }
+    public int getChunkRows() { return chunkRows; }
+    public int getChunkColumns() { return chunkColumns; }
+    public int getCachedCount() { return chunks.size(); }
+    /** Number of chunks rendered so far, including rebuilds after eviction. */
+    public long getBuilds() { return builds; }
+
+    /** Maximum number of cached chunks (at least 4); extra chunks are evicted oldest first. */
+    public void setCapacity(int capacity) {
+        this.capacity = Math.max(4, capacity);
+        while (chunks.size() > this.capacity) {
+            Integer eldest = chunks.keySet().iterator().next();
+            spare.add(chunks.remove(eldest));
+        }
+    }
+
+    /** Chunk image, building it if it is not cached. g supplies the screen's pixel format. */
+    public BufferedImage get(int chunkRow, int chunkColumn, Graphics g) {
+        Integer key = chunkRow * chunkColumns + chunkColumn;
+        BufferedImage image = chunks.get(key);
+        if (image == null) {
+            image = spare.isEmpty() ? createImage(g) : spare.remove(spare.size() - 1);
+            render(image, chunkRow, chunkColumn);
+            chunks.put(key, image);
+        }
+        return image;
+    }
+
+    /** Erases a pellet from its chunk if that chunk is cached; otherwise it is built without it. */
+    public void pelletEaten(int row, int column) {
+        BufferedImage image = chunks.get((row / CHUNK_TILES) * chunkColumns + column / CHUNK_TILES);
+        if (image == null) return;
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect((column % CHUNK_TILES) * tileSize, (row % CHUNK_TILES) * tileSize, tileSize, tileSize);
+        g.dispose();
+    }
+
+    /** Drops every chunk, e.g. when the pellets are reset for a new level. */
+    public void invalidateAll() {
+        spare.addAll(chunks.values());
+        chunks.clear();
+    }
+
+    private BufferedImage createImage(Graphics g) {
+        if (g instanceof Graphics2D) {
+            return ((Graphics2D) g).getDeviceConfiguration().createCompatibleImage(chunkPixels, chunkPixels);
+        }
+        return new BufferedImage(chunkPixels, chunkPixels, BufferedImage.TYPE_INT_RGB);
+    }
+
+    private void render(BufferedImage image, int chunkRow, int chunkColumn) {
+        CollisionGrid grid = world.getWallGrid();
+        PelletBoard pellets = world.getPellets();
+        Food pellet = world.getPellet();
+        int firstRow = chunkRow * CHUNK_TILES;
+        int firstColumn = chunkColumn * CHUNK_TILES;
+        int lastRow = Math.min(firstRow + CHUNK_TILES, world.getRowCount());
+        int lastColumn = Math.min(firstColumn + CHUNK_TILES, world.getColumnCount());
+
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, chunkPixels, chunkPixels);
+        for (int r = firstRow; r < lastRow; r++) {
+            for (int c = firstColumn; c < lastColumn; c++) {
+                int x = (c - firstColumn) * tileSize;
+                int y = (r - firstRow) * tileSize;
+                g.translate(x, y);
+                if (grid.isWall(r, c)) {
+                    wallTile.draw(g);
+                } else if (pellets.has(r, c)) {
+                    pellet.draw(g);
+                }
+                g.translate(-x, -y);
+            }
+        }
+        g.dispose();
+        builds++;
+    }
+}
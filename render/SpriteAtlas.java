@@ -0,0 +1,179 @@
+package render;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import javax.imageio.ImageIO;
+
+import exceptions.GameException;
+
+/**
+ * Every sprite decoded once and packed side by side into a single atlas image, plus copies
+ * pre-scaled to a given size and cached by (sprite, size). All images are in the screen's
+ * pixel format (createCompatibleImage), so drawing a copy at its own size is a plain,
+ * accelerated blit instead of a format conversion and a scale on every frame.
+ * Until the atlas is decoded, placeholder() gives flat-coloured stand-ins of the same size.
+ */
+public class SpriteAtlas {
+
+    public static final int WALL = 0;
+    public static final int BLUE_GHOST = 1;
+    public static final int ORANGE_GHOST = 2;
+    public static final int PINK_GHOST = 3;
+    public static final int RED_GHOST = 4;
+    public static final int SCARED_GHOST = 5;
+    public static final int PACMAN_UP = 6;
+    public static final int PACMAN_DOWN = 7;
+    public static final int PACMAN_LEFT = 8;
+    public static final int PACMAN_RIGHT = 9;
+
+    /** Resource names, indexed by the constants above. */
+    public static final String[] NAMES = {
+        "wall", "blueGhost", "orangeGhost", "pinkGhost", "redGhost", "scaredGhost",
+        "pacmanUp", "pacmanDown", "pacmanLeft", "pacmanRight"
+    };
+
+    private static final Color[] PLACEHOLDER_COLORS = {
+        new Color(33, 33, 222), Color.CYAN, Color.ORANGE, Color.PINK, Color.RED, Color.BLUE,
+        Color.YELLOW, Color.YELLOW, Color.YELLOW, Color.YELLOW
+    };
+
+    private static CompletableFuture<SpriteAtlas> shared;
+
+    private GraphicsConfiguration config;
+    private BufferedImage atlas;
+    private int[] regionX = new int[NAMES.length];
+    private int[] regionWidth = new int[NAMES.length];
+    private int[] regionHeight = new int[NAMES.length];
+    private HashMap<Long, BufferedImage> scaled = new HashMap<>();
+
+    /** The sprites on the classpath, decoded in the background on first use and shared by every renderer. */
+    public static synchronized CompletableFuture<SpriteAtlas> getSharedAsync() {
+        if (shared == null) shared = loadAsync();
+        return shared;
+    }
+
+    /** The shared atlas, waiting for it if it is still being decoded. */
+    public static SpriteAtlas getShared() throws GameException {
+        try {
+            return getSharedAsync().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof GameException) throw (GameException) e.getCause();
+            throw new GameException("Cannot load sprites: " + e.getCause(), GameException.RESOURCE_ERROR, e.getCause());
+        }
+    }
+
+    /** Decodes /<name>.png for every sprite, one after another; a missing scared ghost falls back to the blue one. */
+    public static SpriteAtlas load() throws GameException {
+        BufferedImage[] images = new BufferedImage[NAMES.length];
+        for (int i = 0; i < NAMES.length; i++) images[i] = decode(NAMES[i]);
+        return new SpriteAtlas(images);
+    }
+
+    /** Like load(), but each PNG is decoded as its own background task and the atlas is packed when all are in. */
+    public static CompletableFuture<SpriteAtlas> loadAsync() {
+        BufferedImage[] images = new BufferedImage[NAMES.length];
+        CompletableFuture<?>[] decodes = new CompletableFuture<?>[NAMES.length];
+        for (int i = 0; i < NAMES.length; i++) {
+            int sprite = i;
+            decodes[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    images[sprite] = decode(NAMES[sprite]);
+                } catch (GameException e) {
+                    throw new CompletionException(e);
+                }
+            });
+        }
+        return CompletableFuture.allOf(decodes).thenApply(done -> new SpriteAtlas(images));
+    }
+
+    static BufferedImage decode(String name) throws GameException {
+        URL url = SpriteAtlas.class.getResource("/" + name + ".png");
+        if (url == null) {
+            if (name.equals("scaredGhost")) return decode("blueGhost");
+            throw new GameException("Missing sprite " + name + ".png", GameException.RESOURCE_ERROR);
+        }
+        try {
+            BufferedImage image = ImageIO.read(url);
+            if (image == null) throw new IOException("not a readable image");
+            return image;
+        } catch (IOException e) {
+            throw new GameException("Cannot read sprite " + name + ".png: " + e.getMessage(), GameException.RESOURCE_ERROR, e);
+        }
+    }
+
+    /** Packs already decoded sprites, indexed like NAMES, into one row of the atlas. */
+    public SpriteAtlas(BufferedImage[] images) {
+        this.config = screenConfiguration();
+        int width = 0;
+        int height = 1;
+        for (int i = 0; i < images.length; i++) {
+            regionX[i] = width;
+            regionWidth[i] = images[i].getWidth();
+            regionHeight[i] = images[i].getHeight();
+            width += regionWidth[i];
+            height = Math.max(height, regionHeight[i]);
+        }
+        atlas = createImage(width, height);
+        Graphics2D g = atlas.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        for (int i = 0; i < images.length; i++) g.drawImage(images[i], regionX[i], 0, null);
+        g.dispose();
+    }
+
+    /** The packed sprites, one row in NAMES order. */
+    public BufferedImage getAtlas() { return atlas; }
+    public int getCachedCount() { return scaled.size(); }
+
+    /**
+     * The sprite scaled to size x size pixels, built on first request and then cached.
+     * Scaling is nearest-neighbour, the same look drawImage's own scaling gave.
+     */
+    public synchronized BufferedImage get(int sprite, int size) {
+        Long key = ((long) sprite << 32) | size;
+        BufferedImage image = scaled.get(key);
+        if (image == null) {
+            image = createImage(size, size);
+            Graphics2D g = image.createGraphics();
+            g.setComposite(AlphaComposite.Src);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            int x = regionX[sprite];
+            g.drawImage(atlas, 0, 0, size, size, x, 0, x + regionWidth[sprite], regionHeight[sprite], null);
+            g.dispose();
+            scaled.put(key, image);
+        }
+        return image;
+    }
+
+    /** A flat stand-in for the sprite: a square for walls, a disc in the sprite's colour otherwise. */
+    public static BufferedImage placeholder(int sprite, int size) {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = image.createGraphics();
+        g.setColor(PLACEHOLDER_COLORS[sprite]);
+        if (sprite == WALL) g.fillRect(0, 0, size, size);
+        else g.fillOval(0, 0, size, size);
+        g.dispose();
+        return image;
+    }
+
+    private BufferedImage createImage(int width, int height) {
+        if (config != null) return config.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+    }
+
+    /** The default screen's format, or null when headless (offscreen rendering uses ARGB_PRE). */
+    private static GraphicsConfiguration screenConfiguration() {
+        if (GraphicsEnvironment.isHeadless()) return null;
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+    }
+}
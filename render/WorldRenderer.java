@@ -0,0 +1,283 @@
+package render;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.util.ArrayList;
+import javax.swing.JComponent;
+
+import engine.GameWorld;
+import engine.WorldListener;
+import exceptions.GameException;
+import model.*;
+
+/**
+ * Draws a GameWorld: entities, maze and HUD.
+ * Kept separate from the Swing panel so it can also render offscreen.
+ *
+ * A Camera follows Pac-Man when the viewport is smaller than the board. Walls and pellets
+ * are pre-rendered into compatible chunk images (ChunkCache) and only the chunks and
+ * entities inside the viewport are drawn, so frame cost depends on the window, not the map.
+ * repaintDirty() limits Swing repaints to the cells around moving entities and the HUD
+ * while the camera is still. Sprites come from a SpriteAtlas already at tile size, so each
+ * entity is an unscaled blit; they can arrive after the first frame (setSprites).
+ */
+public class WorldRenderer implements WorldListener {
+
+    private Wall wallTile;
+    private boolean hasSprites;
+
+    private GameWorld world;
+    private int tileSize;
+
+    private Camera camera;
+    private ChunkCache chunks;
+    private Rectangle clip = new Rectangle();
+    private int lastCameraX;
+    private int lastCameraY;
+
+    private Rectangle dirty = new Rectangle();
+    private boolean fullRepaint = true;
+    private int[] lastDrawnX;
+    private int[] lastDrawnY;
+    private static final Font HUD_FONT = new Font("Arial", Font.PLAIN, 18);
+    private GlyphVector hudLine;
+    private GlyphVector restartLine;
+    private int hudScore;
+    private int hudLives;
+    private boolean hudGameOver;
+
+    private int lastHudScore = -1;
+    private int lastHudLives = -1;
+    private boolean lastHudGameOver;
+
+    /**
+     * Loads the HUD font and lays out some text with it; the first use of a font costs
+     * over 100 ms, so startup does it in the background instead of in the first frame.
+     */
+    public static void preloadFont() {
+        HUD_FONT.createGlyphVector(new FontRenderContext(null, true, true), "x3 Score: 0123456789");
+    }
+
+    /** Waits for the shared SpriteAtlas; without sprites (a missing PNG) placeholders are drawn. */
+    public WorldRenderer(GameWorld world) {
+        this(world, sharedAtlas());
+    }
+
+    /** @param atlas the sprites, or null to start with placeholders until setSprites() */
+    public WorldRenderer(GameWorld world, SpriteAtlas atlas) {
+        this.world = world;
+        this.tileSize = world.getTileSize();
+        this.lastDrawnX = new int[world.getGhosts().size() + 1];
+        this.lastDrawnY = new int[world.getGhosts().size() + 1];
+        this.camera = new Camera(world.getBoardWidth(), world.getBoardHeight());
+        this.wallTile = new Wall(null, 0, 0, tileSize, tileSize);
+        this.chunks = new ChunkCache(world, wallTile);
+        setSprites(atlas);
+        sizeChunkCache();
+        world.setListener(this);
+    }
+
+    private static SpriteAtlas sharedAtlas() {
+        try {
+            return SpriteAtlas.getShared();
+        } catch (GameException e) {
+            System.out.println("Note: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public Camera getCamera() { return camera; }
+    public ChunkCache getChunks() { return chunks; }
+
+    /** Sets the on-screen size in pixels; defaults to the whole board. */
+    public void setViewport(int width, int height) {
+        if (width == camera.getViewWidth() && height == camera.getViewHeight()) return;
+        camera.setViewport(width, height);
+        sizeChunkCache();
+        fullRepaint = true;
+    }
+
+    /** Two viewports' worth of chunks, so a camera moving back and forth does not rebuild them. */
+    private void sizeChunkCache() {
+        int across = camera.getViewWidth() / chunks.getChunkPixels() + 2;
+        int down = camera.getViewHeight() / chunks.getChunkPixels() + 2;
+        chunks.setCapacity(2 * across * down);
+    }
+
+    /**
+     * Gives the world's entities their sprites at tile size: from the atlas, or flat
+     * placeholders while it is null. Must be called under the same lock as draw().
+     */
+    public void setSprites(SpriteAtlas atlas) {
+        hasSprites = atlas != null;
+        wallTile.setImage(sprite(atlas, SpriteAtlas.WALL));
+        Image scared = sprite(atlas, SpriteAtlas.SCARED_GHOST);
+        for (Ghost ghost : world.getGhosts()) {
+            switch (ghost.getColor()) {
+                case "blue": ghost.setNormalImage(sprite(atlas, SpriteAtlas.BLUE_GHOST)); break;
+                case "orange": ghost.setNormalImage(sprite(atlas, SpriteAtlas.ORANGE_GHOST)); break;
+                case "pink": ghost.setNormalImage(sprite(atlas, SpriteAtlas.PINK_GHOST)); break;
+                case "red": ghost.setNormalImage(sprite(atlas, SpriteAtlas.RED_GHOST)); break;
+            }
+            ghost.setScaredImage(scared);
+            ghost.setScared(ghost.isScared());
+        }
+        Player pacman = world.getPacman();
+        pacman.setDirectionImages(sprite(atlas, SpriteAtlas.PACMAN_UP), sprite(atlas, SpriteAtlas.PACMAN_DOWN),
+            sprite(atlas, SpriteAtlas.PACMAN_LEFT), sprite(atlas, SpriteAtlas.PACMAN_RIGHT));
+        pacman.update();
+        chunks.invalidateAll();
+        fullRepaint = true;
+    }
+
+    /** Whether the real sprites are in, rather than placeholders. */
+    public boolean hasSprites() { return hasSprites; }
+
+    private Image sprite(SpriteAtlas atlas, int sprite) {
+        return atlas == null ? SpriteAtlas.placeholder(sprite, tileSize) : atlas.get(sprite, tileSize);
+    }
+
+    public void draw(Graphics g) {
+        draw(g, 1.0);
+    }
+
+    /**
+     * @param alpha fraction of a tick since the last step, used to interpolate moving entities
+     */
+    public void draw(Graphics g, double alpha) {
+        follow(alpha);
+        int cameraX = camera.getX();
+        int cameraY = camera.getY();
+        g.translate(-cameraX, -cameraY);
+        drawChunks(g);
+
+        drawIfVisible(g, world.getPacman(), alpha);
+        ArrayList<Ghost> ghosts = world.getGhosts();
+        for (int i = 0; i < ghosts.size(); i++) drawIfVisible(g, ghosts.get(i), alpha);
+        g.translate(cameraX, cameraY);
+
+        drawHud((Graphics2D) g);
+    }
+
+    private void follow(double alpha) {
+        Player pacman = world.getPacman();
+        camera.centerOn(pacman.getRenderX(alpha) + pacman.getWidth() / 2, pacman.getRenderY(alpha) + pacman.getHeight() / 2);
+    }
+
+    /** Blits the chunks overlapping both the viewport and the clip (the dirty region). */
+    private void drawChunks(Graphics g) {
+        clip.setBounds(camera.getX(), camera.getY(), camera.getViewWidth(), camera.getViewHeight());
+        g.getClipBounds(clip);
+        int left = Math.max(clip.x, camera.getX());
+        int top = Math.max(clip.y, camera.getY());
+        int right = Math.min(clip.x + clip.width, camera.getX() + camera.getViewWidth());
+        int bottom = Math.min(clip.y + clip.height, camera.getY() + camera.getViewHeight());
+
+        int size = chunks.getChunkPixels();
+        int firstRow = Math.max(0, top / size);
+        int firstColumn = Math.max(0, left / size);
+        int lastRow = Math.min(chunks.getChunkRows() - 1, (bottom - 1) / size);
+        int lastColumn = Math.min(chunks.getChunkColumns() - 1, (right - 1) / size);
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                g.drawImage(chunks.get(r, c, g), c * size, r * size, null);
+            }
+        }
+    }
+
+    private void drawIfVisible(Graphics g, GameEntity entity, double alpha) {
+        if (camera.isVisible(entity.getRenderX(alpha), entity.getRenderY(alpha), entity.getWidth(), entity.getHeight())) {
+            entity.draw(g, alpha);
+        }
+    }
+
+    /** HUD text is laid out into glyph runs once per change, so unchanged frames allocate nothing. */
+    private void drawHud(Graphics2D g) {
+        int score = world.getScore();
+        int lives = world.getLives();
+        boolean gameOver = world.isGameOver();
+        if (hudLine == null || score != hudScore || lives != hudLives || gameOver != hudGameOver) {
+            FontRenderContext context = g.getFontRenderContext();
+            String text = gameOver ? "Game Over: " + score : "x" + lives + " Score: " + score;
+            hudLine = HUD_FONT.createGlyphVector(context, text);
+            if (restartLine == null) restartLine = HUD_FONT.createGlyphVector(context, "Press any key to restart");
+            hudScore = score;
+            hudLives = lives;
+            hudGameOver = gameOver;
+        }
+
+        g.setColor(Color.WHITE);
+        g.drawGlyphVector(hudLine, tileSize/2, tileSize/2);
+        if (gameOver) g.drawGlyphVector(restartLine, tileSize/2, tileSize);
+    }
+
+    @Override
+    public void pelletEaten(int row, int column) {
+        chunks.pelletEaten(row, column);
+        addDirty(column * tileSize, row * tileSize, tileSize, tileSize);
+    }
+
+    @Override
+    public void levelLoaded() {
+        chunks.invalidateAll();
+        fullRepaint = true;
+    }
+
+    /**
+     * Repaints only what changed since the last call: moved entities (old and new
+     * position), eaten pellets and the HUD. A scrolling camera repaints the whole view.
+     * Must be called under the same lock as draw().
+     */
+    public void repaintDirty(JComponent target, double alpha) {
+        follow(alpha);
+        if (camera.getX() != lastCameraX || camera.getY() != lastCameraY) {
+            lastCameraX = camera.getX();
+            lastCameraY = camera.getY();
+            fullRepaint = true;
+        }
+        if (fullRepaint) {
+            fullRepaint = false;
+            dirty.setSize(0, 0);
+            target.repaint();
+            return;
+        }
+
+        trackEntity(0, world.getPacman(), alpha);
+        ArrayList<Ghost> ghosts = world.getGhosts();
+        for (int i = 0; i < ghosts.size(); i++) {
+            trackEntity(i + 1, ghosts.get(i), alpha);
+        }
+
+        if (world.getScore() != lastHudScore || world.getLives() != lastHudLives || world.isGameOver() != lastHudGameOver) {
+            lastHudScore = world.getScore();
+            lastHudLives = world.getLives();
+            lastHudGameOver = world.isGameOver();
+            addDirty(lastCameraX, lastCameraY, camera.getViewWidth(), tileSize + tileSize / 4);
+        }
+
+        if (!dirty.isEmpty()) {
+            target.repaint(dirty.x - lastCameraX, dirty.y - lastCameraY, dirty.width, dirty.height);
+            dirty.setSize(0, 0);
+        }
+    }
+
+    private void trackEntity(int index, GameEntity entity, double alpha) {
+        int x = entity.getRenderX(alpha);
+        int y = entity.getRenderY(alpha);
+        if (x == lastDrawnX[index] && y == lastDrawnY[index]) return;
+        addDirty(lastDrawnX[index], lastDrawnY[index], entity.getWidth(), entity.getHeight());
+        addDirty(x, y, entity.getWidth(), entity.getHeight());
+        lastDrawnX[index] = x;
+        lastDrawnY[index] = y;
+    }
+
+    private void addDirty(int x, int y, int width, int height) {
+        if (dirty.isEmpty()) {
+            dirty.setBounds(x, y, width, height);
+        } else {
+            dirty.add(x, y);
+            dirty.add(x + width, y + height);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package util;
+
+import model.GameEntity;
+
+/**
+ * Tile-indexed wall lookup built once per map.
+ * Answers "does this rectangle overlap a wall" by checking only the tiles it touches.
+ */
+public class CollisionGrid {
+
+    private int rowCount;
+    private int columnCount;
+    private int tileSize;
+    private byte[] cells;
+    private long checks;
+
+    public CollisionGrid(int rowCount, int columnCount, int tileSize) {
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.tileSize = tileSize;
+        this.cells = new byte[rowCount * columnCount];
+    }
+
+    public int getRowCount() { return rowCount; }
+    public int getColumnCount() { return columnCount; }
+    public int getTileSize() { return tileSize; }
+    /** Rectangle-against-wall queries answered so far, for PerfMetrics. */
+    public long getChecks() { return checks; }
+
+    public void setWall(int row, int column) {
+        cells[row * columnCount + column] = 1;
+    }
+
+    /** Tiles outside the map are open, matching the tunnel rows of the maze. */
+    public boolean isWall(int row, int column) {
+        if (row < 0 || column < 0 || row >= rowCount || column >= columnCount) return false;
+        return cells[row * columnCount + column] != 0;
+    }
+
+    public boolean overlapsWall(int x, int y, int width, int height) {
+        checks++;
+        int firstColumn = Math.floorDiv(x, tileSize);
+        int lastColumn = Math.floorDiv(x + width - 1, tileSize);
+        int firstRow = Math.floorDiv(y, tileSize);
+        int lastRow = Math.floorDiv(y + height - 1, tileSize);
+
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                if (isWall(r, c)) return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean collidesWithWall(GameEntity entity) {
+        return overlapsWall(entity.getX(), entity.getY(), entity.getWidth(), entity.getHeight());
+    }
+}
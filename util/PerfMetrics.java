@@ -0,0 +1,132 @@
+package util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import exceptions.GameException;
+
+/**
+ * Per-tick and per-frame measurements in lock-free Histograms: tick time, paint time,
+ * frame interval, collision checks per tick and bytes allocated per tick. Recording a tick
+ * is two clock reads, two allocation-counter reads and a few atomic adds, with nothing
+ * allocated, so it can stay on. Published over JMX with register().
+ */
+public class PerfMetrics implements PerfMetricsMBean {
+
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+    private Histogram tickNanos = new Histogram();
+    private Histogram paintNanos = new Histogram();
+    private Histogram frameIntervalNanos = new Histogram();
+    private Histogram collisionsPerTick = new Histogram();
+    private Histogram bytesPerTick = new Histogram();
+    private long lastPaintStart;
+    private ObjectName name;
+
+    /** Bytes allocated so far by the calling thread, or -1 if the JVM cannot tell. */
+    public static long allocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) return null;
+        com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+        if (!counter.isThreadAllocatedMemorySupported()) return null;
+        counter.setThreadAllocatedMemoryEnabled(true);
+        return counter;
+    }
+
+    /**
+     * @param nanos      how long the tick took
+     * @param collisions collision checks it made
+     * @param bytes      bytes it allocated, or negative if unknown
+     */
+    public void recordTick(long nanos, long collisions, long bytes) {
+        tickNanos.record(nanos);
+        collisionsPerTick.record(collisions);
+        if (bytes >= 0) bytesPerTick.record(bytes);
+    }
+
+    /** A paint from start to end; the gap since the previous paint's start is the frame interval. */
+    public void recordPaint(long startNanos, long endNanos) {
+        paintNanos.record(endNanos - startNanos);
+        if (lastPaintStart != 0) frameIntervalNanos.record(startNanos - lastPaintStart);
+        lastPaintStart = startNanos;
+    }
+
+    public Histogram getTickNanos() { return tickNanos; }
+    public Histogram getPaintNanos() { return paintNanos; }
+    public Histogram getFrameIntervalNanos() { return frameIntervalNanos; }
+    public Histogram getCollisionsPerTick() { return collisionsPerTick; }
+    public Histogram getBytesPerTick() { return bytesPerTick; }
+
+    /** Publishes these metrics as pacman:type=PerfMetrics,name=<name>. */
+    public synchronized void register(String instance) throws GameException {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            name = new ObjectName("pacman:type=PerfMetrics,name=" + ObjectName.quote(instance));
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            name = null;
+            throw new GameException("Cannot publish metrics over JMX: " + e.getMessage(), GameException.RESOURCE_ERROR, e);
+        }
+    }
+
+    public synchronized void unregister() {
+        if (name == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException ignored) {
+        }
+        name = null;
+    }
+
+    /** Short summary for the in-game overlay. */
+    public String[] describe() {
+        String bytes = bytesPerTick.getCount() == 0 ? "n/a"
+            : String.format("%.0f B (p99 %d B)", bytesPerTick.getMean(), bytesPerTick.getPercentile(99));
+        return new String[] {
+            String.format("tick   p50 %6.3f  p99 %6.3f  max %6.3f ms", millis(tickNanos, 50), millis(tickNanos, 99), tickNanos.getMax() / 1e6),
+            String.format("paint  p50 %6.3f  p99 %6.3f  max %6.3f ms", millis(paintNanos, 50), millis(paintNanos, 99), paintNanos.getMax() / 1e6),
+            String.format("frame  p50 %6.2f  p99 %6.2f ms", millis(frameIntervalNanos, 50), millis(frameIntervalNanos, 99)),
+            String.format("collision checks/tick %.1f, allocated/tick %s", collisionsPerTick.getMean(), bytes)
+        };
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getPercentile(percentile) / 1e6;
+    }
+
+    @Override public long getTickCount() { return tickNanos.getCount(); }
+    @Override public double getTickMeanMicros() { return tickNanos.getMean() / 1e3; }
+    @Override public double getTickP50Micros() { return tickNanos.getPercentile(50) / 1e3; }
+    @Override public double getTickP99Micros() { return tickNanos.getPercentile(99) / 1e3; }
+    @Override public double getTickMaxMicros() { return tickNanos.getMax() / 1e3; }
+
+    @Override public long getPaintCount() { return paintNanos.getCount(); }
+    @Override public double getPaintP50Micros() { return paintNanos.getPercentile(50) / 1e3; }
+    @Override public double getPaintP99Micros() { return paintNanos.getPercentile(99) / 1e3; }
+    @Override public double getPaintMaxMicros() { return paintNanos.getMax() / 1e3; }
+
+    @Override public double getFrameIntervalP50Millis() { return frameIntervalNanos.getPercentile(50) / 1e6; }
+    @Override public double getFrameIntervalP99Millis() { return frameIntervalNanos.getPercentile(99) / 1e6; }
+
+    @Override public double getCollisionsPerTickMean() { return collisionsPerTick.getMean(); }
+    @Override public long getCollisionsPerTickMax() { return collisionsPerTick.getMax(); }
+
+    @Override public double getBytesPerTickMean() { return bytesPerTick.getMean(); }
+    @Override public long getBytesPerTickP99() { return bytesPerTick.getPercentile(99); }
+
+    @Override
+    public void reset() {
+        tickNanos.reset();
+        paintNanos.reset();
+        frameIntervalNanos.reset();
+        collisionsPerTick.reset();
+        bytesPerTick.reset();
+    }
+}
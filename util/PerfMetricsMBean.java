@@ -0,0 +1,29 @@
+package util;
+
+/**
+ * JMX view of PerfMetrics (jconsole: pacman / PerfMetrics). Times in microseconds,
+ * frame intervals in milliseconds.
+ */
+public interface PerfMetricsMBean {
+    long getTickCount();
+    double getTickMeanMicros();
+    double getTickP50Micros();
+    double getTickP99Micros();
+    double getTickMaxMicros();
+
+    long getPaintCount();
+    double getPaintP50Micros();
+    double getPaintP99Micros();
+    double getPaintMaxMicros();
+
+    double getFrameIntervalP50Millis();
+    double getFrameIntervalP99Millis();
+
+    double getCollisionsPerTickMean();
+    long getCollisionsPerTickMax();
+
+    double getBytesPerTickMean();
+    long getBytesPerTickP99();
+
+    void reset();
+}
@@ -1,125 +1,415 @@
 package util;
 
 import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
+import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import exceptions.GameException;
 
 /**
  * Handles saving and loading high scores.
+ *
+ * The score file is an append-only log of "name,score" lines. Each save appends one line
+ * and fsyncs it, so a crash can lose at most the line being written; loading truncates
+ * such a torn last line and replaying skips any other line that does not parse.
+ * The best MAX_SCORES are kept in a bounded min-heap, and the log is compacted down to
+ * them every COMPACT_EVERY lines by writing a temp file and atomically renaming it over
+ * the log.
+ *
+ * Several games (threads or processes) may share one file. Every file access holds an
+ * exclusive FileChannel lock on a sidecar ".lock" file (the log itself is replaced by
+ * compaction, so it cannot carry the lock), plus an in-JVM lock because FileChannel
+ * locks are per process. Before writing, each manager catches up with whatever the
+ * others appended; loadScores() only re-reads when the file's identity, size or
+ * modification time changed, and then only the new tail when the file just grew.
  */
 public class ScoreManager {
-    
+
     private String filename;
-    private ArrayList<ScoreEntry> highScores;
+    private Path logPath;
+    private Path lockPath;
+    private PriorityQueue<ScoreEntry> highScores;
     private static final int MAX_SCORES = 10;
-    
+    private static final int COMPACT_EVERY = 256;
+
+    private static final ConcurrentHashMap<Path, ReentrantLock> JVM_LOCKS = new ConcurrentHashMap<>();
+
+    /** Lowest score first; among equal scores the newest is dropped first, as before. */
+    private static final Comparator<ScoreEntry> WORST_FIRST = new Comparator<ScoreEntry>() {
+        @Override
+        public int compare(ScoreEntry a, ScoreEntry b) {
+            if (a.score != b.score) return Integer.compare(a.score, b.score);
+            return Long.compare(b.sequence, a.sequence);
+        }
+    };
+
+    private long sequence;
+    private int topScore;
+    private int logLines;
+    private int skippedLines;
+
+    // what the heap reflects: the log file's identity, bytes replayed and mtime
+    private Object knownFileKey;
+    private long knownSize = -1;
+    private long knownModified;
+    private long fullReloads;
+    private long tailReloads;
+
+    private interface LockedAction {
+        void run() throws IOException;
+    }
+
     public static class ScoreEntry {
         private String playerName;
         private int score;
-        
+        private long sequence;
+
         public ScoreEntry(String playerName, int score) {
             this.playerName = playerName;
             this.score = score;
         }
-        
+
         public String getPlayerName() { return playerName; }
         public int getScore() { return score; }
     }
-    
+
     public ScoreManager() {
-        this.filename = "highscores.txt";
-        this.highScores = new ArrayList<>();
+        this("highscores.txt");
     }
-    
+
     public ScoreManager(String filename) {
         this.filename = filename;
-        this.highScores = new ArrayList<>();
-    }
-    
-    public void saveScore(String playerName, int score) throws GameException {
-        highScores.add(new ScoreEntry(playerName, score));
-        
-        Collections.sort(highScores, new Comparator<ScoreEntry>() {
-            @Override
-            public int compare(ScoreEntry a, ScoreEntry b) {
-                return b.getScore() - a.getScore();
+        this.logPath = new File(filename).getAbsoluteFile().toPath();
+        this.lockPath = logPath.resolveSibling(logPath.getFileName() + ".lock");
+        this.highScores = new PriorityQueue<>(MAX_SCORES + 1, WORST_FIRST);
+    }
+
+    /**
+     * Appends the score to the log and syncs it to disk, after catching up with anything
+     * other games appended; cost does not depend on the file size.
+     */
+    public synchronized void saveScore(String playerName, int score) throws GameException {
+        saveScores(Collections.singletonList(new ScoreEntry(playerName, score)));
+    }
+
+    /**
+     * Saves a batch of scores under one lock and one fsync. Entries that would not enter
+     * the top MAX_SCORES are not written at all, since compaction would drop them anyway.
+     */
+    public synchronized void saveScores(List<ScoreEntry> entries) throws GameException {
+        for (ScoreEntry entry : entries) checkName(entry.getPlayerName());
+
+        withFileLock("Failed to save scores", () -> {
+            refresh();
+            // decided on a copy of the heap; the heap itself only changes once the lines are on disk
+            PriorityQueue<ScoreEntry> trial = new PriorityQueue<>(highScores);
+            ArrayList<ScoreEntry> kept = new ArrayList<>();
+            for (ScoreEntry entry : entries) {
+                if (trial.size() < MAX_SCORES || entry.score > trial.peek().score) {
+                    ScoreEntry copy = new ScoreEntry(entry.playerName, entry.score);
+                    trial.add(copy);
+                    if (trial.size() > MAX_SCORES) trial.poll();
+                    kept.add(copy);
+                }
+            }
+            if (kept.isEmpty()) return;
+
+            FileOutputStream out = new FileOutputStream(filename, true);
+            try {
+                PrintWriter writer = new PrintWriter(new FileWriter(out.getFD()));
+                for (ScoreEntry entry : kept) {
+                    writer.println(entry.playerName + "," + entry.score);
+                }
+                writer.flush();
+                if (writer.checkError()) throw new IOException("Write failed");
+                out.getFD().sync();
+            } finally {
+                out.close();
             }
+            for (ScoreEntry entry : kept) offer(entry);
+            logLines += kept.size();
+            remember();
+            if (logLines >= COMPACT_EVERY) compactLocked();
         });
-        
-        while (highScores.size() > MAX_SCORES) {
-            highScores.remove(highScores.size() - 1);
+    }
+
+    static void checkName(String playerName) throws GameException {
+        if (playerName.indexOf(',') >= 0 || playerName.indexOf('\n') >= 0) {
+            throw new GameException("Name cannot contain commas or line breaks", GameException.INVALID_STATE);
         }
-        
-        PrintWriter writer = null;
-        try {
-            writer = new PrintWriter(new FileWriter(filename));
-            for (ScoreEntry entry : highScores) {
-                writer.println(entry.getPlayerName() + "," + entry.getScore());
+    }
+
+    /**
+     * Brings the top scores up to date with the log. A last line cut short by a crash is
+     * truncated away first; other lines that do not parse are skipped and counted instead
+     * of failing the whole leaderboard. Does no reading at all if the file is unchanged.
+     */
+    public synchronized void loadScores() throws GameException {
+        withFileLock("Failed to load scores", this::refresh);
+    }
+
+    /**
+     * Rewrites the log as just the current top scores: write and sync a temp file, then
+     * rename it over the log so readers see either the old or the new file, never a mix.
+     */
+    public synchronized void compact() throws GameException {
+        withFileLock("Failed to compact scores", () -> {
+            refresh();
+            compactLocked();
+        });
+    }
+
+    public synchronized void clearScores() throws GameException {
+        // replaced rather than truncated, so other games see a new file instead of a shorter one
+        withFileLock("Failed to clear scores", () -> {
+            clearHeap();
+            compactLocked();
+        });
+    }
+
+    private void withFileLock(String failure, LockedAction action) throws GameException {
+        ReentrantLock jvmLock = JVM_LOCKS.computeIfAbsent(lockPath, path -> new ReentrantLock());
+        jvmLock.lock();
+        try (FileChannel channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock();
+            try {
+                action.run();
+            } finally {
+                lock.release();
             }
         } catch (IOException e) {
-            throw new GameException("Failed to save scores", GameException.FILE_ERROR, e);
+            throw new GameException(failure, GameException.FILE_ERROR, e);
         } finally {
-            if (writer != null) writer.close();
+            jvmLock.unlock();
         }
     }
-    
-    public void loadScores() throws GameException {
-        highScores.clear();
+
+    /** Replays nothing, the appended tail, or the whole log, depending on what changed. */
+    private void refresh() throws IOException {
+        BasicFileAttributes attributes = attributes();
+        if (attributes == null) {
+            if (knownSize != 0) clearHeap();
+            knownFileKey = null;
+            knownSize = 0;
+            return;
+        }
+        if (isKnown(attributes)) return;
+
+        boolean torn = truncateTornLine();
+        attributes = attributes();
+        boolean grew = knownSize >= 0 && Objects.equals(attributes.fileKey(), knownFileKey)
+            && attributes.size() > knownSize;
+        if (grew) {
+            replayFrom(knownSize);
+            tailReloads++;
+        } else {
+            clearHeap();
+            replayFrom(0);
+            fullReloads++;
+        }
+        if (torn) skippedLines++;
+        remember();
+    }
+
+    private BasicFileAttributes attributes() throws IOException {
+        try {
+            return Files.readAttributes(logPath, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private boolean isKnown(BasicFileAttributes attributes) {
+        return attributes.size() == knownSize && Objects.equals(attributes.fileKey(), knownFileKey)
+            && attributes.lastModifiedTime().toMillis() == knownModified;
+    }
+
+    /** Records the file as it is now; only valid while the heap matches its contents. */
+    private void remember() throws IOException {
+        BasicFileAttributes attributes = attributes();
+        knownFileKey = attributes == null ? null : attributes.fileKey();
+        knownSize = attributes == null ? 0 : attributes.size();
+        knownModified = attributes == null ? 0 : attributes.lastModifiedTime().toMillis();
+    }
+
+    private void replayFrom(long offset) throws IOException {
+        FileInputStream in = new FileInputStream(filename);
         BufferedReader reader = null;
         try {
-            reader = new BufferedReader(new FileReader(filename));
+            in.getChannel().position(offset);
+            reader = new BufferedReader(new InputStreamReader(in));
             String line;
             while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length == 2) {
-                    highScores.add(new ScoreEntry(parts[0].trim(), Integer.parseInt(parts[1].trim())));
-                }
+                replay(line);
             }
-        } catch (IOException e) {
-            throw new GameException("Failed to load scores", GameException.FILE_ERROR, e);
-        } catch (NumberFormatException e) {
-            throw new GameException("Invalid score format", GameException.FILE_ERROR, e);
         } finally {
-            if (reader != null) {
-                try { reader.close(); } catch (IOException e) {}
-            }
+            if (reader != null) reader.close();
+            else in.close();
         }
     }
-    
-    public ArrayList<ScoreEntry> getHighScores() {
-        return new ArrayList<>(highScores);
+
+    private void replay(String line) {
+        logLines++;
+        ScoreEntry entry = parse(line);
+        if (entry != null) offer(entry);
+        else if (!line.trim().isEmpty()) skippedLines++;
     }
-    
-    public boolean isHighScore(int score) {
-        if (highScores.size() < MAX_SCORES) return true;
-        return score > highScores.get(highScores.size() - 1).getScore();
+
+    /** The entry on a log line, or null if it is not name,score. */
+    private static ScoreEntry parse(String line) {
+        String[] parts = line.split(",");
+        if (parts.length != 2) return null;
+        try {
+            return new ScoreEntry(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
-    
-    public int getTopScore() {
-        return highScores.isEmpty() ? 0 : highScores.get(0).getScore();
+
+    private void offer(ScoreEntry entry) {
+        entry.sequence = sequence++;
+        if (highScores.isEmpty() || entry.score > topScore) topScore = entry.score;
+        if (highScores.size() < MAX_SCORES) {
+            highScores.add(entry);
+        } else if (entry.score > highScores.peek().score) {
+            highScores.poll();
+            highScores.add(entry);
+        }
     }
-    
-    public void clearScores() throws GameException {
+
+    private void clearHeap() {
         highScores.clear();
+        topScore = 0;
+        logLines = 0;
+        skippedLines = 0;
+    }
+
+    /**
+     * Every entry this class appends ends with a newline. A last line without one is kept,
+     * and given its newline, if it still reads as name,score (e.g. a file edited by hand);
+     * otherwise it is a torn append and is cut off. Returns true if it was cut.
+     */
+    private boolean truncateTornLine() throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(filename, "rw");
+        try {
+            long end = raf.length();
+            if (end == 0) return false;
+            raf.seek(end - 1);
+            if (raf.read() == '\n') return false;
+
+            long keep = end - 1;
+            while (keep > 0) {
+                raf.seek(keep - 1);
+                if (raf.read() == '\n') break;
+                keep--;
+            }
+            byte[] last = new byte[(int) (end - keep)];
+            raf.seek(keep);
+            raf.readFully(last);
+            if (parse(new String(last)) != null) {
+                raf.seek(end);
+                raf.write('\n');
+                raf.getFD().sync();
+                return false;
+            }
+            raf.setLength(keep);
+            raf.getFD().sync();
+            return true;
+        } finally {
+            raf.close();
+        }
+    }
+
+    private void compactLocked() throws IOException {
+        Path temp = logPath.resolveSibling(logPath.getFileName() + ".tmp");
+        FileOutputStream out = new FileOutputStream(temp.toFile());
+        try {
+            PrintWriter writer = new PrintWriter(new FileWriter(out.getFD()));
+            for (ScoreEntry entry : getHighScores()) {
+                writer.println(entry.getPlayerName() + "," + entry.getScore());
+            }
+            writer.flush();
+            if (writer.checkError()) throw new IOException("Write failed");
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+
         try {
-            new PrintWriter(new FileWriter(filename)).close();
+            Files.move(temp, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, logPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(logPath.getParent());
+        logLines = highScores.size();
+        skippedLines = 0;
+        remember();
+    }
+
+    /** Makes the rename itself durable; not every platform allows opening a directory. */
+    private static void syncDirectory(Path directory) {
+        if (directory == null) return;
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
         } catch (IOException e) {
-            throw new GameException("Failed to clear scores", GameException.FILE_ERROR, e);
+            // best effort
         }
     }
-    
-    public String getFormattedScores() {
+
+    /** Best scores, highest first. */
+    public synchronized ArrayList<ScoreEntry> getHighScores() {
+        ArrayList<ScoreEntry> sorted = new ArrayList<>(highScores);
+        Collections.sort(sorted, Collections.reverseOrder(WORST_FIRST));
+        return sorted;
+    }
+
+    public synchronized boolean isHighScore(int score) {
+        if (highScores.size() < MAX_SCORES) return true;
+        return score > highScores.peek().getScore();
+    }
+
+    public synchronized int getTopScore() {
+        return topScore;
+    }
+
+    /** Lines in the log since the last compaction, including skipped ones. */
+    public synchronized int getLogLines() { return logLines; }
+    /** Lines skipped since the last full replay because they did not parse. */
+    public synchronized int getSkippedLines() { return skippedLines; }
+    /** Times the whole log was replayed, e.g. after another game compacted it. */
+    public synchronized long getFullReloads() { return fullReloads; }
+    /** Times only lines appended by other games were read. */
+    public synchronized long getTailReloads() { return tailReloads; }
+
+    public synchronized String getFormattedScores() {
         if (highScores.isEmpty()) return "No high scores yet!";
-        
+
+        ArrayList<ScoreEntry> sorted = getHighScores();
         StringBuilder sb = new StringBuilder("=== HIGH SCORES ===\n");
-        for (int i = 0; i < highScores.size(); i++) {
-            ScoreEntry entry = highScores.get(i);
+        for (int i = 0; i < sorted.size(); i++) {
+            ScoreEntry entry = sorted.get(i);
             sb.append(String.format("%2d. %-15s %6d\n", i + 1, entry.getPlayerName(), entry.getScore()));
         }
         return sb.toString();
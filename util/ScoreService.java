@@ -0,0 +1,286 @@
+package util;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import exceptions.GameException;
+
+/**
+ * Runs all score file I/O on one background thread so the EDT never waits on the disk.
+ *
+ * Requests go into a bounded queue and complete through CompletableFutures. The writer
+ * takes whatever is queued as one batch: any number of loads become one refresh, all
+ * leaderboard saves share one lock and fsync (ScoreManager.saveScores), and all history
+ * records share one fsync (ScoreStore.addScores). The writer is the only thread that
+ * touches the ScoreManager and ScoreStore, so callers never block on their monitors.
+ */
+public class ScoreService {
+
+    public static final int QUEUE_CAPACITY = 256;
+
+    private static final int LOAD = 0;
+    private static final int SAVE = 1;
+    private static final int RECORD = 2;
+    private static final int STANDING = 3;
+    private static final int FORMATTED = 4;
+    private static final int SHUTDOWN = 5;
+
+    private ScoreManager leaderboard;
+    private ScoreStore history;
+    private String historyFilename;
+    private String legacyFilename;
+
+    private ArrayBlockingQueue<Request> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private Thread writer;
+    private volatile boolean closed;
+    private boolean shutdownQueued;
+
+    private volatile long batches;
+    private volatile long requests;
+
+    private static class Request {
+        final int kind;
+        final String playerName;
+        final int score;
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        Request(int kind, String playerName, int score) {
+            this.kind = kind;
+            this.playerName = playerName;
+            this.score = score;
+        }
+    }
+
+    /** Where a score would place at game over. */
+    public static class Standing {
+        private boolean highScore;
+        private int rank;
+        private int games;
+        private double percentile;
+
+        Standing(boolean highScore, int rank, int games, double percentile) {
+            this.highScore = highScore;
+            this.rank = rank;
+            this.games = games;
+            this.percentile = percentile;
+        }
+
+        public boolean isHighScore() { return highScore; }
+        /** Rank among all recorded games, or 0 if the history is unavailable. */
+        public int getRank() { return rank; }
+        public int getGames() { return games; }
+        public double getPercentile() { return percentile; }
+    }
+
+    /**
+     * The history store is opened on the writer thread; if it does not exist yet, the
+     * legacy text leaderboard is imported into it.
+     */
+    public ScoreService(ScoreManager leaderboard, String historyFilename, String legacyFilename) {
+        this.leaderboard = leaderboard;
+        this.historyFilename = historyFilename;
+        this.legacyFilename = legacyFilename;
+        writer = new Thread(this::run, "score-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Loads the leaderboard and history in the background. */
+    public CompletableFuture<Void> load() {
+        return submit(LOAD, null, 0).thenApply(result -> null);
+    }
+
+    /** Adds a score to the top-10 leaderboard. */
+    public CompletableFuture<Void> save(String playerName, int score) {
+        try {
+            ScoreManager.checkName(playerName);
+        } catch (GameException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return submit(SAVE, playerName, score).thenApply(result -> null);
+    }
+
+    /** Adds a finished game to the full history. */
+    public CompletableFuture<Void> record(String playerName, int score) {
+        return submit(RECORD, playerName, score).thenApply(result -> null);
+    }
+
+    /** Whether the score is a high score, and its rank, against everything saved so far. */
+    public CompletableFuture<Standing> standing(int score) {
+        return submit(STANDING, null, score).thenApply(result -> (Standing) result);
+    }
+
+    /** The leaderboard text, re-read from disk if another game changed it. */
+    public CompletableFuture<String> formattedScores() {
+        return submit(FORMATTED, null, 0).thenApply(result -> (String) result);
+    }
+
+    /**
+     * Stops taking requests and waits up to timeoutMillis in all for queued ones to be
+     * written, including the wait for room in a full queue. Returns false if the writer
+     * had not finished by then; calling again keeps trying.
+     */
+    public synchronized boolean close(long timeoutMillis) {
+        closed = true;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        try {
+            if (!shutdownQueued) {
+                shutdownQueued = queue.offer(new Request(SHUTDOWN, null, 0), timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+            long left = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (shutdownQueued && left > 0) writer.join(left);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !writer.isAlive();
+    }
+
+    public long getBatches() { return batches; }
+    public long getRequests() { return requests; }
+    public int getPending() { return queue.size(); }
+
+    private CompletableFuture<Object> submit(int kind, String playerName, int score) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new GameException("Score service is closed", GameException.INVALID_STATE));
+        }
+        Request request = new Request(kind, playerName, score);
+        if (!queue.offer(request)) {
+            return CompletableFuture.failedFuture(new GameException("Too many pending score requests", GameException.INVALID_STATE));
+        }
+        return request.future;
+    }
+
+    private void run() {
+        openHistory();
+        ArrayList<Request> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch);
+            running = process(batch);
+            batch.clear();
+        }
+
+        // anything that slipped in after the shutdown request
+        queue.drainTo(batch);
+        for (Request request : batch) {
+            request.future.completeExceptionally(new GameException("Score service is closed", GameException.INVALID_STATE));
+        }
+        if (history != null) {
+            try {
+                history.close();
+            } catch (GameException e) {
+                System.out.println("Note: " + e.getUserFriendlyMessage());
+            }
+        }
+    }
+
+    private void openHistory() {
+        boolean fresh = !new File(historyFilename).exists();
+        ScoreStore store = new ScoreStore(historyFilename);
+        try {
+            store.open();
+            if (fresh && legacyFilename != null && new File(legacyFilename).exists()) store.importText(legacyFilename);
+            history = store;
+        } catch (GameException e) {
+            System.out.println("Note: " + e.getUserFriendlyMessage());
+        }
+    }
+
+    /** Handles one batch; returns false once a shutdown request has been seen. */
+    private boolean process(ArrayList<Request> batch) {
+        batches++;
+        requests += batch.size();
+
+        boolean load = false;
+        boolean standing = false;
+        boolean shutdown = false;
+        ArrayList<ScoreManager.ScoreEntry> saves = new ArrayList<>();
+        ArrayList<ScoreManager.ScoreEntry> records = new ArrayList<>();
+        for (Request request : batch) {
+            // a standing is judged against the files as other games left them, too
+            if (request.kind == LOAD || request.kind == FORMATTED || request.kind == STANDING) load = true;
+            else if (request.kind == SAVE) saves.add(new ScoreManager.ScoreEntry(request.playerName, request.score));
+            else if (request.kind == RECORD) records.add(new ScoreManager.ScoreEntry(request.playerName, request.score));
+            else if (request.kind == SHUTDOWN) shutdown = true;
+            if (request.kind == STANDING) standing = true;
+        }
+
+        GameException loadError = null;
+        GameException saveError = null;
+        GameException recordError = null;
+        if (load) {
+            try {
+                leaderboard.loadScores();
+            } catch (GameException e) {
+                loadError = e;
+            }
+        }
+        if (!saves.isEmpty()) {
+            try {
+                leaderboard.saveScores(saves);
+            } catch (GameException e) {
+                saveError = e;
+            }
+        }
+        if (!records.isEmpty()) {
+            if (history == null) {
+                recordError = new GameException("Score history is unavailable", GameException.FILE_ERROR);
+            } else {
+                try {
+                    history.addScores(records);
+                } catch (GameException e) {
+                    recordError = e;
+                }
+            }
+        }
+        if (standing && history != null) {
+            try {
+                history.refresh();
+            } catch (GameException e) {
+                // rank against what this game already knows
+                System.out.println("Note: " + e.getUserFriendlyMessage());
+            }
+        }
+
+        for (Request request : batch) {
+            switch (request.kind) {
+                case LOAD:
+                    complete(request, loadError, null);
+                    break;
+                case SAVE:
+                    complete(request, saveError, null);
+                    break;
+                case RECORD:
+                    complete(request, recordError, null);
+                    break;
+                case STANDING:
+                    complete(request, null, standingOf(request.score));
+                    break;
+                case FORMATTED:
+                    complete(request, loadError, leaderboard.getFormattedScores());
+                    break;
+                default:
+                    request.future.complete(null);
+            }
+        }
+        return !shutdown;
+    }
+
+    private Standing standingOf(int score) {
+        boolean high = leaderboard.isHighScore(score);
+        if (history == null) return new Standing(high, 0, 0, 0);
+        return new Standing(high, history.rank(score), history.getCount(), history.percentile(score));
+    }
+
+    private static void complete(Request request, GameException error, Object result) {
+        if (error != null) request.future.completeExceptionally(error);
+        else request.future.complete(result);
+    }
+}
@@ -0,0 +1,510 @@
+package util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import exceptions.GameException;
+
+/**
+ * Every game ever played, for rank, percentile and per-player best queries.
+ *
+ * On disk it is an append-only binary log (scores.db): a header, then records that
+ * either introduce a player name (PLAYER, writeUTF) or add a score (SCORE, player id
+ * and score as ints, 9 bytes). In memory all scores sit in one sorted int array plus a
+ * small unsorted delta buffer that is merged in when it fills, so a rank lookup is a
+ * binary search plus a scan of at most DELTA_CAPACITY ints; opening and importing skip
+ * the buffer and sort once at the end. The top PAGE_SIZE entries
+ * are kept in a bounded heap, so the leaderboard never touches the full history.
+ *
+ * Several games (threads or processes) may share one file. Every write holds an
+ * exclusive FileChannel lock on a sidecar ".lock" file plus an in-JVM lock, as
+ * ScoreManager does, and first replays whatever the others appended, so player ids
+ * always match the file. A batch is synced before the lock is released; if it fails
+ * it is cut off again, so only a crash can leave a torn record at the end of the file.
+ */
+public class ScoreStore {
+
+    public static final int PAGE_SIZE = 10;
+
+    private static final int MAGIC = 0x50534352;
+    private static final int VERSION = 1;
+    private static final byte PLAYER = 1;
+    private static final byte SCORE = 2;
+    private static final int DELTA_CAPACITY = 4096;
+    private static final int MAX_NAME_BYTES = 65535;
+
+    private static final ConcurrentHashMap<Path, ReentrantLock> JVM_LOCKS = new ConcurrentHashMap<>();
+
+    private String filename;
+    private Path lockPath;
+    private FileOutputStream fileOut;
+    private DataOutputStream out;
+    // bytes of the log that the in-memory index reflects
+    private long knownLength;
+    private int skippedRecords;
+
+    private interface LockedAction {
+        void run() throws IOException, GameException;
+    }
+
+    private int[] sorted = new int[1024];
+    private int sortedCount;
+    private int[] delta = new int[DELTA_CAPACITY];
+    private int deltaCount;
+    private boolean bulk;
+
+    private HashMap<String, Integer> playerIds = new HashMap<>();
+    private ArrayList<String> playerNames = new ArrayList<>();
+    private int[] playerBest = new int[64];
+
+    private PriorityQueue<long[]> topPage = new PriorityQueue<>(PAGE_SIZE + 1, new Comparator<long[]>() {
+        @Override
+        public int compare(long[] a, long[] b) {
+            // {score, player id, sequence}: lowest score first, newest first among ties
+            if (a[0] != b[0]) return Long.compare(a[0], b[0]);
+            return Long.compare(b[2], a[2]);
+        }
+    });
+    private long sequence;
+
+    public ScoreStore(String filename) {
+        this.filename = filename;
+        Path logPath = new File(filename).getAbsoluteFile().toPath();
+        this.lockPath = logPath.resolveSibling(logPath.getFileName() + ".lock");
+    }
+
+    /**
+     * Reads the whole log into memory and opens it for appending. Creates the file if missing.
+     */
+    public synchronized void open() throws GameException {
+        withFileLock("Failed to open score store", () -> {
+            catchUp();
+            openAppend();
+        });
+    }
+
+    /** Records a finished game and syncs it to disk. */
+    public synchronized void addScore(String playerName, int score) throws GameException {
+        checkName(playerName);
+        write("Failed to save score", () -> append(playerName, score));
+    }
+
+    /** Records several games with one fsync. */
+    public synchronized void addScores(List<ScoreManager.ScoreEntry> entries) throws GameException {
+        for (ScoreManager.ScoreEntry entry : entries) checkName(entry.getPlayerName());
+        write("Failed to save scores", () -> {
+            for (ScoreManager.ScoreEntry entry : entries) {
+                append(entry.getPlayerName(), entry.getScore());
+            }
+        });
+    }
+
+    /**
+     * Streams a "name,score" text file (the ScoreManager format) into the store.
+     * Lines that do not parse are skipped. Returns the number of scores imported.
+     */
+    public synchronized int importText(String textFilename) throws GameException {
+        int[] imported = new int[1];
+        write("Failed to import scores", () -> {
+            beginBulk();
+            try (BufferedReader reader = new BufferedReader(new FileReader(textFilename))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int comma = line.indexOf(',');
+                    if (comma <= 0 || line.indexOf(',', comma + 1) >= 0) continue;
+                    String name = line.substring(0, comma).trim();
+                    if (utfLength(name) > MAX_NAME_BYTES) continue;
+                    try {
+                        int score = Integer.parseInt(line.substring(comma + 1).trim());
+                        append(name, score);
+                        imported[0]++;
+                    } catch (NumberFormatException e) {
+                        // skip
+                    }
+                }
+            } finally {
+                endBulk();
+            }
+        });
+        return imported[0];
+    }
+
+    /** Picks up the games other processes recorded since this store last looked. */
+    public synchronized void refresh() throws GameException {
+        if (out == null) throw new GameException("Score store is not open", GameException.INVALID_STATE);
+        withFileLock("Failed to read score store", this::catchUp);
+    }
+
+    public synchronized void close() throws GameException {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new GameException("Failed to close score store", GameException.FILE_ERROR, e);
+        } finally {
+            out = null;
+        }
+    }
+
+    public synchronized int getCount() {
+        return sortedCount + deltaCount;
+    }
+
+    public synchronized int getPlayerCount() {
+        return playerNames.size();
+    }
+
+    /** 1 + the number of games with a strictly higher score. */
+    public synchronized int rank(int score) {
+        int higher = sortedCount - upperBound(score);
+        for (int i = 0; i < deltaCount; i++) {
+            if (delta[i] > score) higher++;
+        }
+        return higher + 1;
+    }
+
+    /** Percentage of games with a strictly lower score (0 when the store is empty). */
+    public synchronized double percentile(int score) {
+        int count = getCount();
+        if (count == 0) return 0;
+        int lower = lowerBound(score);
+        for (int i = 0; i < deltaCount; i++) {
+            if (delta[i] < score) lower++;
+        }
+        return 100.0 * lower / count;
+    }
+
+    /** The player's best score, or -1 if they have never played. */
+    public synchronized int getBest(String playerName) {
+        Integer id = playerIds.get(playerName);
+        if (id == null || playerBest[id] == Integer.MIN_VALUE) return -1;
+        return playerBest[id];
+    }
+
+    /** Best PAGE_SIZE games, highest first. */
+    public synchronized ArrayList<ScoreManager.ScoreEntry> getTopPage() {
+        ArrayList<long[]> entries = new ArrayList<>(topPage);
+        Collections.sort(entries, Collections.reverseOrder(topPage.comparator()));
+        ArrayList<ScoreManager.ScoreEntry> page = new ArrayList<>();
+        for (long[] entry : entries) {
+            page.add(new ScoreManager.ScoreEntry(playerNames.get((int) entry[1]), (int) entry[0]));
+        }
+        return page;
+    }
+
+    public synchronized String getFormattedScores() {
+        if (topPage.isEmpty()) return "No high scores yet!";
+
+        ArrayList<ScoreManager.ScoreEntry> page = getTopPage();
+        StringBuilder sb = new StringBuilder("=== HIGH SCORES ===\n");
+        for (int i = 0; i < page.size(); i++) {
+            ScoreManager.ScoreEntry entry = page.get(i);
+            sb.append(String.format("%2d. %-15s %6d\n", i + 1, entry.getPlayerName(), entry.getScore()));
+        }
+        return sb.toString();
+    }
+
+    /** Score records skipped on load because their player id was unknown. */
+    public synchronized int getSkippedRecords() {
+        return skippedRecords;
+    }
+
+    /** Approximate heap used by the index, for benchmarks. */
+    public synchronized long getIndexBytes() {
+        return 4L * (sorted.length + delta.length + playerBest.length);
+    }
+
+    /** Names are stored with writeUTF, which takes at most 65535 encoded bytes. */
+    static void checkName(String playerName) throws GameException {
+        if (utfLength(playerName) > MAX_NAME_BYTES) {
+            throw new GameException("Name is too long", GameException.INVALID_STATE);
+        }
+    }
+
+    /**
+     * Runs the records under the file lock, after catching up with other games, and syncs
+     * them. If anything fails the file is cut back to where the batch began and the index
+     * is rebuilt from it, so neither keeps a record the other lacks.
+     */
+    private void write(String failure, LockedAction records) throws GameException {
+        if (out == null) throw new GameException("Score store is not open", GameException.INVALID_STATE);
+        withFileLock(failure, () -> {
+            catchUp();
+            long start = knownLength;
+            try {
+                records.run();
+                sync();
+            } catch (IOException | RuntimeException e) {
+                try {
+                    rollBack(start);
+                } catch (IOException | GameException rollBackError) {
+                    // the file may still hold part of the batch; stop writing rather than guess
+                    e.addSuppressed(rollBackError);
+                    out = null;
+                }
+                throw e;
+            }
+            knownLength = fileOut.getChannel().size();
+        });
+    }
+
+    private void withFileLock(String failure, LockedAction action) throws GameException {
+        ReentrantLock jvmLock = JVM_LOCKS.computeIfAbsent(lockPath, path -> new ReentrantLock());
+        jvmLock.lock();
+        try (FileChannel channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock();
+            try {
+                action.run();
+            } finally {
+                lock.release();
+            }
+        } catch (IOException e) {
+            throw new GameException(failure, GameException.FILE_ERROR, e);
+        } finally {
+            jvmLock.unlock();
+        }
+    }
+
+    /** Only call with a checked name and under the file lock. */
+    private void append(String playerName, int score) throws IOException {
+        Integer id = playerIds.get(playerName);
+        if (id == null) {
+            out.writeByte(PLAYER);
+            out.writeUTF(playerName);
+            id = addPlayer(playerName);
+        }
+        out.writeByte(SCORE);
+        out.writeInt(id);
+        out.writeInt(score);
+        index(id, score);
+    }
+
+    private void sync() throws IOException {
+        out.flush();
+        fileOut.getFD().sync();
+    }
+
+    private void openAppend() throws IOException {
+        fileOut = new FileOutputStream(filename, true);
+        out = new DataOutputStream(new BufferedOutputStream(fileOut));
+    }
+
+    /**
+     * Indexes whatever was appended since the last look. A record cut short at the end can
+     * only be left by a crash, since writers sync before unlocking, so it is truncated; so
+     * is a header cut short, which is then written again before any record follows it.
+     */
+    private void catchUp() throws IOException, GameException {
+        File file = new File(filename);
+        long length = file.length();
+        if (length == knownLength && length > 0) return;
+        if (length < knownLength) {
+            // replaced or cut back by someone else: start over
+            clear();
+        }
+        knownLength = length == 0 ? 0 : replay(file, knownLength);
+        if (knownLength == 0) {
+            // missing, empty or torn header
+            writeHeader(file);
+        } else if (knownLength < file.length()) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(knownLength);
+                raf.getFD().sync();
+            }
+        }
+    }
+
+    private void writeHeader(File file) throws IOException {
+        try (FileOutputStream headerOut = new FileOutputStream(file)) {
+            DataOutputStream header = new DataOutputStream(headerOut);
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.flush();
+            headerOut.getFD().sync();
+        }
+        knownLength = file.length();
+    }
+
+    /** Cuts a failed batch off the file and rebuilds the index from what is left. */
+    private void rollBack(long start) throws IOException, GameException {
+        // unflushed bytes of the failed batch are dropped with the old stream
+        fileOut.close();
+        try (RandomAccessFile raf = new RandomAccessFile(filename, "rw")) {
+            raf.setLength(start);
+            raf.getFD().sync();
+        }
+        clear();
+        catchUp();
+        openAppend();
+    }
+
+    private void clear() {
+        sortedCount = 0;
+        deltaCount = 0;
+        playerIds.clear();
+        playerNames.clear();
+        topPage.clear();
+        sequence = 0;
+        knownLength = 0;
+        skippedRecords = 0;
+    }
+
+    /**
+     * Loads every record from the given offset (0 for the whole file, header included);
+     * returns the offset after the last complete record. A score for an unknown player
+     * is skipped, not treated as the end of the log; an unknown record type means the
+     * file is damaged, and it is left untouched.
+     */
+    private long replay(File file, long offset) throws IOException, GameException {
+        FileInputStream fileIn = new FileInputStream(file);
+        fileIn.getChannel().position(offset);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(fileIn, 1 << 16));
+        long valid = offset;
+        boolean whole = offset == 0;
+        if (whole) beginBulk();
+        try {
+            if (offset == 0) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new GameException("Not a score store: " + filename, GameException.FILE_ERROR);
+                }
+                valid = 8;
+            }
+            while (true) {
+                int type = in.read();
+                if (type < 0) break;
+                if (type == PLAYER) {
+                    String name = in.readUTF();
+                    addPlayer(name);
+                    valid += 1 + 2 + utfLength(name);
+                } else if (type == SCORE) {
+                    int id = in.readInt();
+                    int score = in.readInt();
+                    if (id >= 0 && id < playerNames.size()) index(id, score);
+                    else skippedRecords++;
+                    valid += 9;
+                } else {
+                    throw new GameException("Score store is damaged at byte " + valid + ": " + filename, GameException.FILE_ERROR);
+                }
+            }
+        } catch (EOFException e) {
+            // torn last record
+        } finally {
+            in.close();
+            if (whole) endBulk();
+        }
+        return valid;
+    }
+
+    private int addPlayer(String name) {
+        int id = playerNames.size();
+        playerNames.add(name);
+        playerIds.put(name, id);
+        if (id >= playerBest.length) playerBest = Arrays.copyOf(playerBest, playerBest.length * 2);
+        playerBest[id] = Integer.MIN_VALUE;
+        return id;
+    }
+
+    /** Bulk loads append straight to the sorted array and sort once at the end. */
+    private void beginBulk() {
+        mergeDelta();
+        bulk = true;
+    }
+
+    private void endBulk() {
+        bulk = false;
+        Arrays.sort(sorted, 0, sortedCount);
+    }
+
+    private void index(int id, int score) {
+        if (score > playerBest[id]) playerBest[id] = score;
+
+        long seq = sequence++;
+        if (topPage.size() < PAGE_SIZE) {
+            topPage.add(new long[]{score, id, seq});
+        } else if (score > topPage.peek()[0]) {
+            topPage.poll();
+            topPage.add(new long[]{score, id, seq});
+        }
+
+        if (bulk) {
+            if (sortedCount == sorted.length) sorted = Arrays.copyOf(sorted, sorted.length + (sorted.length >> 1));
+            sorted[sortedCount++] = score;
+            return;
+        }
+        if (deltaCount == DELTA_CAPACITY) mergeDelta();
+        delta[deltaCount++] = score;
+    }
+
+    /** Sorts the delta buffer and merges it into the sorted array from the back, in place. */
+    private void mergeDelta() {
+        if (deltaCount == 0) return;
+        Arrays.sort(delta, 0, deltaCount);
+        int total = sortedCount + deltaCount;
+        if (total > sorted.length) sorted = Arrays.copyOf(sorted, Math.max(total, sorted.length + (sorted.length >> 1)));
+
+        int i = sortedCount - 1;
+        int j = deltaCount - 1;
+        for (int k = total - 1; j >= 0; k--) {
+            sorted[k] = i >= 0 && sorted[i] > delta[j] ? sorted[i--] : delta[j--];
+        }
+        sortedCount = total;
+        deltaCount = 0;
+    }
+
+    /** Index of the first sorted score greater than the given one. */
+    private int upperBound(int score) {
+        int low = 0;
+        int high = sortedCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= score) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /** Index of the first sorted score not less than the given one. */
+    private int lowerBound(int score) {
+        int low = 0;
+        int high = sortedCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < score) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private static int utfLength(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) length++;
+            else if (c > 0x07FF) length += 3;
+            else length += 2;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,66 @@
+package util;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * When each startup phase was first reached, in milliseconds since main() began (the
+ * class is loaded by App's first statement). Time-to-first-frame is FIRST_FRAME and
+ * time-to-interactive is INTERACTIVE: the first frame drawn with every sprite while the
+ * loop takes input. Marks may come from any thread; only the first mark of a phase counts.
+ */
+public class StartupTrace {
+
+    public static final String LAUNCH = "launch";
+    public static final String MAZE_READY = "maze ready";
+    public static final String FIRST_FRAME = "first frame";
+    public static final String SPRITES_READY = "sprites ready";
+    public static final String SCORES_LOADED = "scores loaded";
+    public static final String INTERACTIVE = "interactive";
+
+    private static final long ORIGIN = System.nanoTime();
+    private static final LinkedHashMap<String, Long> marks = new LinkedHashMap<>();
+    private static boolean printing;
+
+    /** Records the phase unless it was already reached; printed as it happens if printing is on. */
+    public static synchronized void mark(String phase) {
+        if (marks.containsKey(phase)) return;
+        long nanos = System.nanoTime() - ORIGIN;
+        marks.put(phase, nanos);
+        if (!printing) return;
+        System.out.println(String.format("startup: %-14s %7.1f ms", phase, nanos / 1e6));
+        if (phase.equals(INTERACTIVE)) System.out.println(String.format("startup: plus %.0f ms of JVM start-up before main()", getJvmMillis()));
+    }
+
+    /** Milliseconds from main() to the phase, or -1 if it has not been reached. */
+    public static synchronized double getMillis(String phase) {
+        Long nanos = marks.get(phase);
+        return nanos == null ? -1 : nanos / 1e6;
+    }
+
+    public static synchronized boolean isMarked(String phase) {
+        return marks.containsKey(phase);
+    }
+
+    /** Prints each phase to standard output as it is reached (App --trace). */
+    public static synchronized void setPrinting(boolean enabled) {
+        printing = enabled;
+    }
+
+    /** Milliseconds the JVM ran before main(): class loading and VM start-up, not in the marks. */
+    public static double getJvmMillis() {
+        double sinceOrigin = (System.nanoTime() - ORIGIN) / 1e6;
+        return ManagementFactory.getRuntimeMXBean().getUptime() - sinceOrigin;
+    }
+
+    /** Every phase reached so far, e.g. "launch=0.0 maze ready=41.2 first frame=230.5". */
+    public static synchronized String describe() {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Long> mark : marks.entrySet()) {
+            if (text.length() > 0) text.append(' ');
+            text.append(mark.getKey()).append('=').append(String.format("%.1f", mark.getValue() / 1e6));
+        }
+        return text.toString();
+    }
+}